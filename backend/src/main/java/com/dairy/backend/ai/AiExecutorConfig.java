@@ -0,0 +1,73 @@
+package com.dairy.backend.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for blocking Ollama calls, kept apart from the request threads so
+ * a few slow generations can't starve the note endpoints.
+ *
+ * Only OllamaScheduler submits here, and only work it has already admitted,
+ * so the scheduler is the single admission point (429 with Retry-After) and
+ * this executor never rejects. With spring.threads.virtual.enabled each call
+ * gets its own virtual thread; otherwise the platform pool has one thread per
+ * scheduler slot and an unbounded queue. The queue only ever holds the task
+ * admitted when a permit is released just before its thread returns to the
+ * pool, so it stays within ai.scheduler.max-concurrent.
+ *
+ * WebSocket frames and SSE events are written on their own executors
+ * (aiWebSocketSendExecutor, aiStreamSendExecutor) so a client that reads
+ * slowly blocks a sender thread, never a stream or a timer.
+ */
+@Configuration
+public class AiExecutorConfig {
+
+    @Bean(name = "aiExecutor")
+    public AsyncTaskExecutor aiExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${ai.scheduler.max-concurrent:2}") int maxConcurrent) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ai-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ai-");
+        executor.setCorePoolSize(Math.max(1, maxConcurrent));
+        executor.setMaxPoolSize(Math.max(1, maxConcurrent));
+        return executor;
+    }
+
+    // Each session has at most one drain task queued, so the queue is bounded by the session count
+    @Bean(name = "aiWebSocketSendExecutor")
+    public AsyncTaskExecutor aiWebSocketSendExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${ai.websocket.send-threads:8}") int sendThreads) {
+        return sendExecutor("ws-send-", virtualThreads, sendThreads);
+    }
+
+    // Same shape for SSE: at most one drain task per stream
+    @Bean(name = "aiStreamSendExecutor")
+    public AsyncTaskExecutor aiStreamSendExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${ai.stream.send-threads:8}") int sendThreads) {
+        return sendExecutor("sse-send-", virtualThreads, sendThreads);
+    }
+
+    private static AsyncTaskExecutor sendExecutor(String prefix, boolean virtualThreads, int sendThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(sendThreads);
+        executor.setMaxPoolSize(sendThreads);
+        return executor;
+    }
+}
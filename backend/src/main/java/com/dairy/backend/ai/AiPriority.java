@@ -0,0 +1,7 @@
+package com.dairy.backend.ai;
+
+// Interactive chat is dispatched ahead of batch generation (see OllamaScheduler)
+public enum AiPriority {
+    INTERACTIVE,
+    BATCH
+}
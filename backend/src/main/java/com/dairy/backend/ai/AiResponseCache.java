@@ -0,0 +1,116 @@
+package com.dairy.backend.ai;
+
+import com.dairy.backend.cache.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Generated responses keyed by a digest of everything that determines them,
+ * including the requesting user so no response is served across accounts
+ * (see AiChatService). Eviction is LRU plus a TTL, bounded by the estimated
+ * heap size of the cached text (see BoundedCache).
+ *
+ * Requests for a key that is already being generated join that generation
+ * instead of starting another one, so retries and double-clicks cost a
+ * single Ollama call.
+ */
+@Component
+public class AiResponseCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    public record Stats(long hits, long misses, long coalesced, long bypassed, long evictions,
+                        int entries, long bytes, long maxBytes, double hitRate) {
+    }
+
+    @Value("${ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${ai.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    private BoundedCache<String, String> entries;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        entries = new BoundedCache<>(maxBytes, Duration.ofSeconds(ttlSeconds), null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Cached value, the generation already running for this key, or a new one started by the loader
+    public CompletableFuture<String> get(String key, Supplier<CompletableFuture<String>> loader) {
+        String cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            // A copy, so one caller cancelling can't cancel the shared generation
+            return running.copy();
+        }
+        misses.increment();
+
+        CompletableFuture<String> generation;
+        try {
+            generation = loader.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        generation.whenComplete((value, error) -> {
+            if (error == null && value != null) {
+                store(key, value);
+            }
+            // Stored before the flight ends, so a new request finds one or the other
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight.copy();
+    }
+
+    public void recordBypass() {
+        bypassed.increment();
+    }
+
+    public Stats getStats() {
+        BoundedCache.Stats stats = entries.stats();
+        long hitCount = hits.sum() + coalesced.sum();
+        long lookups = hitCount + misses.sum();
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), bypassed.sum(), stats.evictions(),
+                stats.entries(), stats.bytes(), stats.maxBytes(), lookups == 0 ? 0.0 : (double) hitCount / lookups);
+    }
+
+    private void store(String key, String value) {
+        // Rough heap footprint: two bytes per char plus fixed overhead
+        entries.put(key, value, ENTRY_OVERHEAD_BYTES + 2L * value.length());
+    }
+}
@@ -0,0 +1,46 @@
+package com.dairy.backend.ai;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small timer for AI streaming housekeeping (SSE heartbeats, chunk flushes).
+ * Deliberately not a TaskScheduler bean: one would replace Spring Boot's
+ * auto-configured scheduler for @Scheduled jobs, and the WebSocket support
+ * registers its own TaskScheduler, so injecting one by type is ambiguous.
+ * Tasks must be short and must not block.
+ */
+@Component
+public class AiTimer {
+
+    private final ScheduledExecutorService executor;
+
+    public AiTimer() {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(2, task -> {
+            Thread thread = new Thread(task, "ai-timer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, Duration delay) {
+        return executor.schedule(task, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Duration period) {
+        return executor.scheduleAtFixedRate(task, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
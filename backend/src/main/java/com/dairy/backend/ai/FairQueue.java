@@ -0,0 +1,122 @@
+package com.dairy.backend.ai;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Deficit round robin over per-user FIFO queues. Each user whose turn comes
+ * up earns a quantum of credit and is served while the credit covers the
+ * cost of their next job, so a user with many (or large) queued jobs can't
+ * push everyone else back. Not thread-safe; OllamaScheduler guards it.
+ */
+final class FairQueue<J extends FairQueue.Job> {
+
+    interface Job {
+        Long userId();
+
+        int cost();
+    }
+
+    private static final class UserQueue<J> {
+        final Long userId;
+        final ArrayDeque<J> jobs = new ArrayDeque<>();
+        int deficit;
+
+        UserQueue(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private final int quantum;
+    private final Map<Long, UserQueue<J>> users = new HashMap<>();
+    private final ArrayDeque<UserQueue<J>> active = new ArrayDeque<>();
+    private int size;
+
+    FairQueue(int quantum) {
+        this.quantum = Math.max(1, quantum);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int sizeFor(Long userId) {
+        UserQueue<J> queue = users.get(userId);
+        return queue == null ? 0 : queue.jobs.size();
+    }
+
+    void add(J job) {
+        UserQueue<J> queue = users.get(job.userId());
+        if (queue == null) {
+            queue = new UserQueue<>(job.userId());
+            users.put(job.userId(), queue);
+            active.addLast(queue);
+        }
+        queue.jobs.addLast(job);
+        size++;
+    }
+
+    J poll() {
+        while (!active.isEmpty()) {
+            UserQueue<J> queue = active.peekFirst();
+            J head = queue.jobs.peekFirst();
+            if (head.cost() > queue.deficit) {
+                // Turn over: bank another quantum and go to the back
+                queue.deficit += quantum;
+                active.addLast(active.pollFirst());
+                continue;
+            }
+            queue.jobs.pollFirst();
+            queue.deficit -= head.cost();
+            size--;
+            if (queue.jobs.isEmpty()) {
+                // Idle users don't keep credit
+                active.pollFirst();
+                users.remove(queue.userId);
+            }
+            return head;
+        }
+        return null;
+    }
+
+    boolean remove(J job) {
+        UserQueue<J> queue = users.get(job.userId());
+        if (queue == null || !queue.jobs.remove(job)) {
+            return false;
+        }
+        size--;
+        if (queue.jobs.isEmpty()) {
+            active.remove(queue);
+            users.remove(queue.userId);
+        }
+        return true;
+    }
+
+    // Estimated 1-based dispatch position of every queued job, assuming equal costs: a user's
+    // i-th job waits for up to i jobs of every user plus one more from each user ahead in the round
+    void forEachPosition(int offset, ObjIntConsumer<J> sink) {
+        int[] lengths = new int[active.size()];
+        int u = 0;
+        for (UserQueue<J> queue : active) {
+            lengths[u++] = queue.jobs.size();
+        }
+        int rank = 0;
+        for (UserQueue<J> queue : active) {
+            int index = 0;
+            for (Iterator<J> jobs = queue.jobs.iterator(); jobs.hasNext(); index++) {
+                int ahead = 0;
+                for (int other = 0; other < lengths.length; other++) {
+                    ahead += Math.min(lengths[other], index);
+                    if (other < rank && lengths[other] > index) {
+                        ahead++;
+                    }
+                }
+                sink.accept(jobs.next(), offset + ahead + 1);
+            }
+            rank++;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.dairy.backend.ai;
+
+import com.dairy.backend.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of Ollama. At most ai.scheduler.max-concurrent
+ * generations run at once; everything else waits here, where it is visible,
+ * instead of inside Ollama.
+ *
+ * Waiting work is split by priority and shared fairly between users within
+ * each priority (FairQueue). Interactive chat goes first, but batch work gets
+ * at least one of every ai.scheduler.batch-share dispatches so it can't
+ * starve. Queues are bounded per user and overall; a request that doesn't fit
+ * is rejected immediately with TooManyRequestsException.
+ */
+@Component
+public class OllamaScheduler {
+
+    public record Stats(int running, int maxConcurrent, int queuedInteractive, int queuedBatch,
+                        long dispatched, long rejected) {
+    }
+
+    // Held while a generation runs; release is idempotent
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease();
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    private final class Job implements FairQueue.Job {
+        final Long userId;
+        final AiPriority priority;
+        final int cost;
+        final IntConsumer positionListener;
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+        int lastPosition;
+
+        Job(Long userId, AiPriority priority, int cost, IntConsumer positionListener) {
+            this.userId = userId;
+            this.priority = priority;
+            this.cost = cost;
+            this.positionListener = positionListener;
+        }
+
+        @Override
+        public Long userId() {
+            return userId;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    private record PositionUpdate(IntConsumer listener, int position) {
+    }
+
+    private final Executor aiExecutor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxQueuedPerUser;
+    private final int batchShare;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<AiPriority, FairQueue<Job>> queues = new EnumMap<>(AiPriority.class);
+    private int running;
+    private int interactiveStreak;
+    private long dispatched;
+    private long rejected;
+
+    public OllamaScheduler(@Qualifier("aiExecutor") Executor aiExecutor,
+                           @Value("${ai.scheduler.max-concurrent:2}") int maxConcurrent,
+                           @Value("${ai.scheduler.max-queued:100}") int maxQueued,
+                           @Value("${ai.scheduler.max-queued-per-user:5}") int maxQueuedPerUser,
+                           @Value("${ai.scheduler.quantum:2}") int quantum,
+                           @Value("${ai.scheduler.batch-share:4}") int batchShare,
+                           @Value("${ai.scheduler.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.aiExecutor = aiExecutor;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+        this.batchShare = Math.max(1, batchShare);
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (AiPriority priority : AiPriority.values()) {
+            queues.put(priority, new FairQueue<>(quantum));
+        }
+    }
+
+    /**
+     * Waits for a slot. The future completes with a Permit that the caller
+     * must release when the generation ends; cancelling it while still queued
+     * gives up the place in line. positionListener (optional) is told the
+     * estimated queue position whenever it changes.
+     */
+    public CompletableFuture<Permit> acquire(Long userId, AiPriority priority, int cost, IntConsumer positionListener) {
+        Job job = new Job(userId, priority, Math.max(1, cost), positionListener);
+        List<PositionUpdate> updates;
+        lock.lock();
+        try {
+            if (running < maxConcurrent && queuedTotal() == 0) {
+                running++;
+                dispatched++;
+                job.future.complete(new Permit());
+                return job.future;
+            }
+            FairQueue<Job> queue = queues.get(priority);
+            if (queuedTotal() >= maxQueued || queue.sizeFor(userId) >= maxQueuedPerUser) {
+                rejected++;
+                throw new TooManyRequestsException("AI service is busy, please try again shortly", retryAfterSeconds);
+            }
+            queue.add(job);
+            updates = positionUpdates();
+        } finally {
+            lock.unlock();
+        }
+        job.future.whenComplete((permit, error) -> {
+            if (job.future.isCancelled()) {
+                withdraw(job);
+            }
+        });
+        notify(updates);
+        return job.future;
+    }
+
+    // Runs a blocking task on the AI executor once admitted, releasing the slot when it returns
+    public <T> CompletableFuture<T> submit(Long userId, AiPriority priority, int cost, Supplier<T> task) {
+        return acquire(userId, priority, cost, null).thenCompose(permit -> {
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    try (permit) {
+                        return task.get();
+                    }
+                }, aiExecutor);
+            } catch (RuntimeException e) {
+                // Executor refused the task: give the slot back
+                permit.release();
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    // Cost of a prompt in scheduler units: one per ~2000 characters, at least one
+    public static int costOf(String prompt) {
+        return 1 + (prompt == null ? 0 : prompt.length() / 2000);
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(running, maxConcurrent, queues.get(AiPriority.INTERACTIVE).size(),
+                    queues.get(AiPriority.BATCH).size(), dispatched, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRelease() {
+        List<Job> granted = new ArrayList<>();
+        List<PositionUpdate> updates;
+        lock.lock();
+        try {
+            running--;
+            while (running < maxConcurrent) {
+                Job next = pollNext();
+                if (next == null) {
+                    break;
+                }
+                running++;
+                dispatched++;
+                granted.add(next);
+            }
+            updates = positionUpdates();
+        } finally {
+            lock.unlock();
+        }
+        // Completed outside the lock: callers' continuations may run inline
+        for (Job job : granted) {
+            if (!job.future.complete(new Permit())) {
+                // Cancelled between dispatch and grant; hand the slot straight on
+                new Permit().release();
+            }
+        }
+        notify(updates);
+    }
+
+    private void withdraw(Job job) {
+        List<PositionUpdate> updates;
+        lock.lock();
+        try {
+            if (!queues.get(job.priority).remove(job)) {
+                return;
+            }
+            updates = positionUpdates();
+        } finally {
+            lock.unlock();
+        }
+        notify(updates);
+    }
+
+    private Job pollNext() {
+        FairQueue<Job> interactive = queues.get(AiPriority.INTERACTIVE);
+        FairQueue<Job> batch = queues.get(AiPriority.BATCH);
+        if (interactive.size() > 0 && (batch.size() == 0 || interactiveStreak < batchShare - 1)) {
+            interactiveStreak = batch.size() == 0 ? 0 : interactiveStreak + 1;
+            return interactive.poll();
+        }
+        interactiveStreak = 0;
+        return batch.poll();
+    }
+
+    private int queuedTotal() {
+        return queues.get(AiPriority.INTERACTIVE).size() + queues.get(AiPriority.BATCH).size();
+    }
+
+    // Called with the lock held; listeners themselves are invoked after it is released
+    private List<PositionUpdate> positionUpdates() {
+        List<PositionUpdate> updates = new ArrayList<>();
+        int interactiveQueued = queues.get(AiPriority.INTERACTIVE).size();
+        queues.get(AiPriority.INTERACTIVE).forEachPosition(0, (job, position) -> collect(updates, job, position));
+        queues.get(AiPriority.BATCH).forEachPosition(interactiveQueued, (job, position) -> collect(updates, job, position));
+        return updates;
+    }
+
+    private static void collect(List<PositionUpdate> updates, Job job, int position) {
+        if (job.positionListener != null && job.lastPosition != position) {
+            job.lastPosition = position;
+            updates.add(new PositionUpdate(job.positionListener, position));
+        }
+    }
+
+    private static void notify(List<PositionUpdate> updates) {
+        for (PositionUpdate update : updates) {
+            update.listener().accept(update.position());
+        }
+    }
+}
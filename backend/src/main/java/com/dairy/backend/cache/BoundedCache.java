@@ -0,0 +1,116 @@
+package com.dairy.backend.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * LRU cache bounded by the estimated heap size of its values rather than by
+ * entry count, with a fixed TTL per entry. Backs NoteCache and
+ * AiResponseCache; callers estimate each value's size when they store it.
+ *
+ * A single value may take at most a quarter of the budget, so one huge entry
+ * can't flush everything else. The removal listener is told about entries
+ * that are evicted or found expired (not explicit removes); it runs with the
+ * cache lock held and must not call back into the cache.
+ */
+public final class BoundedCache<K, V> {
+
+    public record Stats(int entries, long bytes, long maxBytes, long evictions) {
+    }
+
+    private record Entry<V>(V value, long bytes, long expiresAt) {
+    }
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Consumer<K> removalListener;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+    private long evictions;
+
+    public BoundedCache(long maxBytes, Duration ttl, Consumer<K> removalListener) {
+        this(maxBytes, ttl, removalListener, System::currentTimeMillis);
+    }
+
+    BoundedCache(long maxBytes, Duration ttl, Consumer<K> removalListener, LongSupplier clock) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.ttlMillis = ttl.toMillis();
+        this.removalListener = removalListener != null ? removalListener : key -> { };
+        this.clock = clock;
+    }
+
+    // The live value, or null when absent or expired
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() > clock.getAsLong()) {
+                return entry.value();
+            }
+            entries.remove(key);
+            currentBytes -= entry.bytes();
+            removalListener.accept(key);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // False when the value is too large to cache
+    public boolean put(K key, V value, long bytes) {
+        if (bytes > maxBytes / 4) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Entry<V> previous = entries.put(key, new Entry<>(value, bytes, clock.getAsLong() + ttlMillis));
+            if (previous != null) {
+                currentBytes -= previous.bytes();
+            }
+            currentBytes += bytes;
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<K, Entry<V>> victim = eldest.next();
+                eldest.remove();
+                currentBytes -= victim.getValue().bytes();
+                evictions++;
+                removalListener.accept(victim.getKey());
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                currentBytes -= removed.bytes();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(entries.size(), currentBytes, maxBytes, evictions);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.dairy.backend.calendar;
+
+import com.dairy.backend.dto.CalendarDay;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One user's notes bucketed by creation day, with the word count of each
+ * note. Range queries (heatmaps) walk only the days in range and "on this
+ * day" probes one date per year, so neither touches note content.
+ */
+public class UserDateIndex {
+
+    private final NavigableMap<LocalDate, Map<Long, Integer>> days = new TreeMap<>();
+    private final Map<Long, LocalDate> dayByNote = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(long noteId, LocalDate day, int words) {
+        lock.writeLock().lock();
+        try {
+            LocalDate previous = dayByNote.put(noteId, day);
+            if (previous != null && !previous.equals(day)) {
+                removeFromDay(previous, noteId);
+            }
+            days.computeIfAbsent(day, d -> new HashMap<>()).put(noteId, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Content changed; the creation day never does
+    public void updateWords(long noteId, int words) {
+        lock.writeLock().lock();
+        try {
+            LocalDate day = dayByNote.get(noteId);
+            if (day != null) {
+                days.get(day).put(noteId, words);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long noteId) {
+        lock.writeLock().lock();
+        try {
+            LocalDate day = dayByNote.remove(noteId);
+            if (day != null) {
+                removeFromDay(day, noteId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromDay(LocalDate day, long noteId) {
+        Map<Long, Integer> notes = days.get(day);
+        if (notes != null) {
+            notes.remove(noteId);
+            if (notes.isEmpty()) {
+                days.remove(day);
+            }
+        }
+    }
+
+    // Days with at least one entry, both ends inclusive
+    public List<CalendarDay> range(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<CalendarDay> result = new ArrayList<>();
+            for (Map.Entry<LocalDate, Map<Long, Integer>> day : days.subMap(from, true, to, true).entrySet()) {
+                long words = 0;
+                for (int count : day.getValue().values()) {
+                    words += count;
+                }
+                result.add(new CalendarDay(day.getKey(), day.getValue().size(), words));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Notes created on the same month and day in years before the given date, most recent year first
+    public List<Long> sameDayInEarlierYears(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<>();
+            if (days.isEmpty()) {
+                return result;
+            }
+            int firstYear = days.firstKey().getYear();
+            for (int year = date.getYear() - 1; year >= firstYear; year--) {
+                LocalDate sameDay = date.withYear(year);
+                // withYear turns Feb 29 into Feb 28 outside leap years; that is not the same day
+                if (sameDay.getDayOfMonth() != date.getDayOfMonth()) {
+                    continue;
+                }
+                Map<Long, Integer> notes = days.get(sameDay);
+                if (notes != null) {
+                    result.addAll(notes.keySet());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
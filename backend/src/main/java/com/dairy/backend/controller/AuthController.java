@@ -5,15 +5,17 @@ import com.dairy.backend.dto.LoginRequest;
 import com.dairy.backend.dto.LoginResponse;
 import com.dairy.backend.dto.MessageResponse;
 import com.dairy.backend.dto.UserInfoResponse;
-import com.dairy.backend.model.*;
+import com.dairy.backend.exception.TooManyRequestsException;
+import com.dairy.backend.security.JwtPrincipal;
+import com.dairy.backend.security.TokenRevocationService;
 import com.dairy.backend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -23,29 +25,49 @@ public class AuthController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         try {
             LoginResponse loginResponse = userService.login(loginRequest);
             return ResponseEntity.ok(loginResponse);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new MessageResponse("Error: " + e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
 
+    // Answered from the token claims; no user lookup
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated()) {
-            User user = (User) authentication.getPrincipal();
-            return ResponseEntity.ok(new UserInfoResponse(
-                    user.getId(),
-                    user.getUsername(),
-                    user.getRole().name()
-            ));
+    public ResponseEntity<?> getCurrentUser(JwtPrincipal principal) {
+        return ResponseEntity.ok(new UserInfoResponse(
+                principal.id(),
+                principal.username(),
+                principal.role().name()
+        ));
+    }
+
+    // Revokes the token this request was made with
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(JwtPrincipal principal) {
+        if (!tokenRevocationService.revoke(principal)) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: This token can't be revoked on its own, use /logout-all"));
         }
-        return ResponseEntity.badRequest().body(new MessageResponse("User not authenticated"));
+        return ResponseEntity.ok(new MessageResponse("Logged out"));
+    }
+
+    // Revokes every token issued to this user so far
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(JwtPrincipal principal) {
+        tokenRevocationService.revokeAll(principal.id());
+        return ResponseEntity.ok(new MessageResponse("Logged out from all devices"));
     }
 
     @GetMapping("/user")
@@ -1,38 +1,147 @@
 package com.dairy.backend.controller;
 
+import com.dairy.backend.ai.AiResponseCache;
+import com.dairy.backend.ai.OllamaScheduler;
+import com.dairy.backend.exception.TooManyRequestsException;
+import com.dairy.backend.ratelimit.AiRateLimiter;
+import com.dairy.backend.ratelimit.RateLimitDecision;
+import com.dairy.backend.security.JwtPrincipal;
 import com.dairy.backend.service.AiChatService;
+import com.dairy.backend.service.AiStreamService;
 
 import com.dairy.backend.websocket.AuthenticatedAIWebSocketHandler;
+import com.dairy.backend.websocket.SessionOutbound;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 @RestController
 @RequestMapping("/api/ai")
 public class EnhancedAiController {
 
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
     private final AiChatService chatService;
     private final AuthenticatedAIWebSocketHandler webSocketHandler;
+    private final AiRateLimiter rateLimiter;
+    private final AiResponseCache responseCache;
+    private final OllamaScheduler scheduler;
+    private final AiStreamService streamService;
 
     public EnhancedAiController(AiChatService chatService,
-                                AuthenticatedAIWebSocketHandler webSocketHandler) {
+                                AuthenticatedAIWebSocketHandler webSocketHandler,
+                                AiRateLimiter rateLimiter,
+                                AiResponseCache responseCache,
+                                OllamaScheduler scheduler,
+                                AiStreamService streamService) {
         this.chatService = chatService;
         this.webSocketHandler = webSocketHandler;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
+        this.scheduler = scheduler;
+        this.streamService = streamService;
     }
 
+    // Async so the request thread is released while Ollama generates
     @PostMapping("/generate")
-    public ResponseEntity<String> generateText(
+    public CompletableFuture<ResponseEntity<String>> generateText(
             @RequestParam(defaultValue = "default") String template,
             @RequestBody Map<String, Object> variables,
-            Authentication authentication) {
+            JwtPrincipal principal) {
+        RateLimitDecision limit = rateLimiter.tryAcquire(principal);
+        if (!limit.allowed()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(limit.retryAfterSeconds()))
+                    .header(REMAINING_HEADER, "0")
+                    .body("AI request limit reached, please retry in " + limit.retryAfterSeconds() + "s"));
+        }
         try {
-            String response = chatService.generateResponse(template, variables);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body("Error generating response: " + e.getMessage());
+            return chatService.generateResponseAsync(principal.id(), template, variables)
+                    .thenApply(text -> withRemaining(ResponseEntity.ok(), limit).body(text))
+                    .exceptionally(e -> failure(e.getCause() != null ? e.getCause() : e));
+        } catch (TooManyRequestsException | TaskRejectedException e) {
+            return CompletableFuture.completedFuture(failure(e));
+        }
+    }
+
+    // Same generation as /generate, streamed as Server-Sent Events (see AiStreamService for the event types)
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamText(
+            @RequestParam(defaultValue = "default") String template,
+            @RequestBody Map<String, Object> variables,
+            JwtPrincipal principal) {
+        RateLimitDecision limit = rateLimiter.tryAcquire(principal);
+        if (!limit.allowed()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(limit.retryAfterSeconds()))
+                    .header(REMAINING_HEADER, "0")
+                    .build();
+        }
+        try {
+            SseEmitter emitter = streamService.stream(principal.id(), template, variables);
+            return withRemaining(ResponseEntity.ok(), limit)
+                    // Stops buffering reverse proxies (nginx) from holding tokens back
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Requests sharing a cached generation can also see the leader's rejection, so both paths map errors here
+    private static ResponseEntity<String> failure(Throwable cause) {
+        if (cause instanceof TooManyRequestsException busy) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                    .body(busy.getMessage());
+        }
+        // Capacity is enforced by the scheduler; the executor only refuses work while shutting down
+        if (cause instanceof TaskRejectedException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("AI service is busy, please try again shortly");
+        }
+        return ResponseEntity.internalServerError()
+                .body("Error generating response: " + cause.getMessage());
+    }
+
+    private static ResponseEntity.BodyBuilder withRemaining(ResponseEntity.BodyBuilder builder, RateLimitDecision limit) {
+        // Negative means no limit applies
+        if (limit.remaining() >= 0) {
+            builder.header(REMAINING_HEADER, String.valueOf(limit.remaining()));
         }
+        return builder;
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AiResponseCache.Stats> getCacheStats() {
+        return ResponseEntity.ok(responseCache.getStats());
+    }
+
+    @GetMapping("/scheduler/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OllamaScheduler.Stats> getSchedulerStats() {
+        return ResponseEntity.ok(scheduler.getStats());
+    }
+
+    // Per-session outbound queue depth for WebSocket chat, to spot clients that can't keep up; lists every user's sessions
+    @GetMapping("/websocket/outbound")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SessionOutbound.Stats>> getWebSocketOutbound() {
+        return ResponseEntity.ok(webSocketHandler.getOutboundStats());
     }
 
     @GetMapping("/websocket/status")
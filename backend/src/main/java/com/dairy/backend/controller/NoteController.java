@@ -2,58 +2,167 @@ package com.dairy.backend.controller;
 
 
 import com.dairy.backend.dto.ApiResponse;
+import com.dairy.backend.dto.CalendarDay;
+import com.dairy.backend.dto.CursorPage;
+import com.dairy.backend.dto.NoteFieldSet;
+import com.dairy.backend.dto.NoteImportEvent;
+import com.dairy.backend.dto.NotePatchRequest;
+import com.dairy.backend.dto.NotePatchResponse;
 import com.dairy.backend.dto.NoteRequest;
 import com.dairy.backend.dto.NoteResponse;
+import com.dairy.backend.dto.NoteRevisionResponse;
+import com.dairy.backend.dto.NoteRevisionSummary;
+import com.dairy.backend.dto.NoteSearchResult;
+import com.dairy.backend.dto.NoteSummary;
+import com.dairy.backend.dto.TagFilter;
 import com.dairy.backend.dto.NoteUpdateRequest;
-import com.dairy.backend.exception.UnauthorizedException;
+import com.dairy.backend.exception.NoteConflictException;
+import com.dairy.backend.exception.QuotaExceededException;
 import com.dairy.backend.exception.UserNotFoundException;
-import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.security.JwtPrincipal;
+import com.dairy.backend.service.NoteCache;
+import com.dairy.backend.service.NoteImportService;
 import com.dairy.backend.service.NoteService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/notes")
 public class NoteController {
+    // Let browsers keep responses but always revalidate them with If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private NoteService noteService;
 
     @Autowired
-    private JwtUtil jwtUtil;
-
-    private Long getUserIdFromToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader != null && authHeader.trim().startsWith("Bearer ")) {
-            String token = authHeader.trim().substring(7).trim();
-            Long userId = jwtUtil.extractUserId(token);
-            System.out.println("Extracted JWT token: " + token);
-            System.out.println("User ID from token: " + userId);
-            if (userId == null) {
-                throw new UnauthorizedException("User ID could not be extracted from token");
+    private NoteImportService noteImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String listETag(Long userId, HttpServletRequest request) {
+        return NoteETags.forList(userId, noteService.getListStamp(userId), request.getQueryString());
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    private static ResponseEntity.BodyBuilder okWithETag(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+    }
+
+    // Every list and search handler also takes ?tag= (all of), ?anyTag= (any of) and ?notTag= (none of)
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<NoteResponse>>> getAllNotes(TagFilter tags, JwtPrincipal principal, HttpServletRequest request) {
+        try {
+            Long userId = principal.id();
+            String etag = listETag(userId, request);
+            if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return notModified(etag);
             }
-            System.out.println("Extracted JWT token: " + token);
-            System.out.println("User ID from token: " + userId);
+            List<NoteResponse> notes = noteService.getAllNotesByUser(userId, tags);
 
-            return userId;
+            return okWithETag(etag).body(new ApiResponse<>(true, "Notes retrieved successfully", notes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
         }
-        throw new UnauthorizedException("No valid token found");
     }
 
-    @GetMapping
-    public ResponseEntity<ApiResponse<List<NoteResponse>>> getAllNotes(HttpServletRequest request) {
+    @GetMapping(params = "limit")
+    public ResponseEntity<ApiResponse<CursorPage<NoteResponse>>> getNotesPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            TagFilter tags,
+            JwtPrincipal principal,
+            HttpServletRequest request) {
         try {
-            Long userId = getUserIdFromToken(request);
-            List<NoteResponse> notes = noteService.getAllNotesByUser(userId);
+            Long userId = principal.id();
+            String etag = listETag(userId, request);
+            if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return notModified(etag);
+            }
+            CursorPage<NoteResponse> page = noteService.getNotesPage(userId, cursor, limit, tags);
+            return okWithETag(etag).body(new ApiResponse<>(true, "Notes retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
 
-            return ResponseEntity.ok(new ApiResponse<>(true, "Notes retrieved successfully", notes));
+    @GetMapping(params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllNoteFields(
+            @RequestParam String fields,
+            TagFilter tags,
+            JwtPrincipal principal,
+            HttpServletRequest request) {
+        try {
+            Long userId = principal.id();
+            String etag = listETag(userId, request);
+            if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return notModified(etag);
+            }
+            List<Map<String, Object>> notes = noteService.getNoteFieldsByUser(userId, NoteFieldSet.parse(fields), tags);
+            return okWithETag(etag).body(new ApiResponse<>(true, "Notes retrieved successfully", notes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping(params = {"limit", "fields"})
+    public ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> getNoteFieldsPage(
+            @RequestParam int limit,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            TagFilter tags,
+            JwtPrincipal principal,
+            HttpServletRequest request) {
+        try {
+            Long userId = principal.id();
+            String etag = listETag(userId, request);
+            if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return notModified(etag);
+            }
+            CursorPage<Map<String, Object>> page =
+                    noteService.getNoteFieldsPage(userId, cursor, limit, NoteFieldSet.parse(fields), tags);
+            return okWithETag(etag).body(new ApiResponse<>(true, "Notes retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse<>(false, e.getMessage(), null));
@@ -63,12 +172,22 @@ public class NoteController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<NoteResponse>> getNoteById(
             @PathVariable Long id,
+            JwtPrincipal principal,
             HttpServletRequest request) {
         try {
-            Long userId = getUserIdFromToken(request);
+            Long userId = principal.id();
+            // Answer revalidation from the version alone, before loading the note
+            Optional<Long> version = noteService.getNoteVersion(id, userId);
+            if (version.isPresent()) {
+                String etag = NoteETags.forNote(id, version.get());
+                if (NoteETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                    return notModified(etag);
+                }
+            }
             Optional<NoteResponse> note = noteService.getNoteById(id, userId);
             if (note.isPresent()) {
-                return ResponseEntity.ok(new ApiResponse<>(true, "Note found", note.get()));
+                return okWithETag(NoteETags.forNote(id, note.get().getVersion()))
+                        .body(new ApiResponse<>(true, "Note found", note.get()));
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new ApiResponse<>(false, "Note not found", null));
@@ -82,14 +201,18 @@ public class NoteController {
     @PostMapping
     public ResponseEntity<ApiResponse<NoteResponse>> createNote(
             @Valid @RequestBody NoteRequest request,
-            HttpServletRequest httpRequest) {
+            JwtPrincipal principal) {
         try {
-            Long userId = getUserIdFromToken(httpRequest);
+            Long userId = principal.id();
             System.out.println(userId);
             NoteResponse note = noteService.createNote(request, userId);
             return ResponseEntity.status(HttpStatus.CREATED)
+                    .eTag(NoteETags.forNote(note.getId(), note.getVersion()))
                     .body(new ApiResponse<>(true, "Note created successfully", note));
-        } catch (UserNotFoundException e) {
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (UserNotFoundException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse<>(false, e.getMessage(), null));
         } catch (Exception e) {
@@ -98,20 +221,108 @@ public class NoteController {
         }
     }
 
+    // Bulk import: one NoteRequest JSON object per line in, NDJSON progress/error events out
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public void importNotes(JwtPrincipal principal, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Long userId = principal.id();
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        NoteImportEvent summary;
+        try {
+            summary = noteImportService.importNotes(userId, reader, event -> writeEvent(out, event));
+        } catch (UserNotFoundException e) {
+            summary = NoteImportEvent.builder().type("error").message(e.getMessage()).build();
+        }
+        writeEvent(out, summary);
+    }
+
+    private void writeEvent(OutputStream out, NoteImportEvent event) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<NoteResponse>> updateNote(
             @PathVariable Long id,
             @Valid @RequestBody NoteRequest request,
+            JwtPrincipal principal,
             HttpServletRequest httpRequest) {
         try {
-            Long userId = getUserIdFromToken(httpRequest);
-            Optional<NoteResponse> updatedNote = noteService.updateNote(id, request, userId);
+            Long userId = principal.id();
+            // If-Match (or a version in the body) turns the update into a compare-and-set on the note version
+            String ifMatch = httpRequest.getHeader(HttpHeaders.IF_MATCH);
+            Long expectedVersion = request.getVersion();
+            if (ifMatch != null && !ifMatch.trim().equals("*")) {
+                expectedVersion = NoteETags.versionOf(ifMatch, id);
+                if (expectedVersion == null) {
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                            .body(new ApiResponse<>(false, "If-Match does not name a version of this note", null));
+                }
+            }
+            Optional<NoteResponse> updatedNote = noteService.updateNote(id, request, userId, expectedVersion);
             if (updatedNote.isPresent()) {
-                return ResponseEntity.ok(new ApiResponse<>(true, "Note updated successfully", updatedNote.get()));
+                ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+                if (updatedNote.get().getVersion() != null) {
+                    ok.eTag(NoteETags.forNote(id, updatedNote.get().getVersion()));
+                }
+                return ok.body(new ApiResponse<>(true, "Note updated successfully", updatedNote.get()));
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new ApiResponse<>(false, "Note not found", null));
             }
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (NoteConflictException e) {
+            HttpStatus status = httpRequest.getHeader(HttpHeaders.IF_MATCH) != null
+                    ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    // Autosave: only the typed edits travel, not the whole note
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponse<NotePatchResponse>> patchNote(
+            @PathVariable Long id,
+            @Valid @RequestBody NotePatchRequest request,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            Optional<NotePatchResponse> patched = noteService.patchNote(id, request, userId);
+            if (patched.isPresent()) {
+                return ResponseEntity.ok()
+                        .eTag(NoteETags.forNote(id, patched.get().getVersion()))
+                        .body(new ApiResponse<>(true, "Note updated successfully", patched.get()));
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ApiResponse<>(false, "Note not found", null));
+            }
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (NoteConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse<>(false, e.getMessage(), null));
@@ -121,9 +332,9 @@ public class NoteController {
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<String>> deleteNote(
             @PathVariable Long id,
-            HttpServletRequest request) {
+            JwtPrincipal principal) {
         try {
-            Long userId = getUserIdFromToken(request);
+            Long userId = principal.id();
             boolean deleted = noteService.deleteNote(id, userId);
             if (deleted) {
                 return ResponseEntity.ok(new ApiResponse<>(true, "Note deleted successfully", "Deleted"));
@@ -140,11 +351,34 @@ public class NoteController {
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<NoteResponse>>> searchNotes(
             @RequestParam String title,
-            HttpServletRequest request) {
+            TagFilter tags,
+            JwtPrincipal principal) {
         try {
-            Long userId = getUserIdFromToken(request);
-            List<NoteResponse> notes = noteService.searchNotes(userId, title);
+            Long userId = principal.id();
+            List<NoteResponse> notes = noteService.searchNotes(userId, title, tags);
             return ResponseEntity.ok(new ApiResponse<>(true, "Search completed", notes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<ApiResponse<List<NoteSearchResult>>> searchFullText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            TagFilter tags,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            List<NoteSearchResult> results = noteService.searchFullText(userId, q, limit, tags);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Search completed", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse<>(false, e.getMessage(), null));
@@ -152,9 +386,9 @@ public class NoteController {
     }
 
     @GetMapping("/count")
-    public ResponseEntity<ApiResponse<Long>> getNoteCount(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<Long>> getNoteCount(JwtPrincipal principal) {
         try {
-            Long userId = getUserIdFromToken(request);
+            Long userId = principal.id();
             long count = noteService.getNoteCountByUser(userId);
             return ResponseEntity.ok(new ApiResponse<>(true, "Note count retrieved", count));
         } catch (Exception e) {
@@ -162,12 +396,103 @@ public class NoteController {
                     .body(new ApiResponse<>(false, e.getMessage(), null));
         }
     }
+    @GetMapping("/tags")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> getTags(JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            Map<String, Integer> tags = noteService.getTagCounts(userId);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Tags retrieved successfully", tags));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    // Entry and word counts per day for a month, or for the whole year when month is omitted
+    @GetMapping("/calendar")
+    public ResponseEntity<ApiResponse<List<CalendarDay>>> getCalendar(
+            @RequestParam int year,
+            @RequestParam(required = false) Integer month,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            List<CalendarDay> days = noteService.getCalendar(userId, year, month);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Calendar retrieved successfully", days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    // Entries written on the same day in earlier years; defaults to today
+    @GetMapping("/on-this-day")
+    public ResponseEntity<ApiResponse<List<NoteSummary>>> getOnThisDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            List<NoteSummary> notes = noteService.getOnThisDay(userId, date != null ? date : LocalDate.now());
+            return ResponseEntity.ok(new ApiResponse<>(true, "Notes retrieved successfully", notes));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<ApiResponse<List<NoteRevisionSummary>>> getRevisions(
+            @PathVariable Long id,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            List<NoteRevisionSummary> revisions = noteService.getRevisions(id, userId);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Revisions retrieved successfully", revisions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/{id}/revisions/{revision}")
+    public ResponseEntity<ApiResponse<NoteRevisionResponse>> getRevision(
+            @PathVariable Long id,
+            @PathVariable Long revision,
+            JwtPrincipal principal) {
+        try {
+            Long userId = principal.id();
+            Optional<NoteRevisionResponse> note = noteService.getRevision(id, userId, revision);
+            if (note.isPresent()) {
+                return ResponseEntity.ok(new ApiResponse<>(true, "Revision found", note.get()));
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(new ApiResponse<>(false, "Revision not found", null));
+            }
+        } catch (IllegalStateException e) {
+            // Listed but broken revision chain
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    // Cache-wide numbers, not scoped to the caller
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<NoteCache.Stats>> getCacheStats() {
+        return ResponseEntity.ok(new ApiResponse<>(true, "Cache statistics", noteService.getCacheStats()));
+    }
+
     @RequestMapping(value = "/**", method = RequestMethod.OPTIONS)
     public ResponseEntity<Void> handleOptions() {
         System.out.println("🔍 OPTIONS request received");
         return ResponseEntity.ok()
                 .header("Access-Control-Allow-Origin", "http://localhost:8080")
-                .header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS")
+                .header("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS")
                 .header("Access-Control-Allow-Headers", "*")
                 .header("Access-Control-Allow-Credentials", "true")
                 .build();
@@ -0,0 +1,97 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.NoteListStamp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Strong ETags for notes and note lists, derived from versions and modification
+ * stamps so they can be checked without loading or serializing any note.
+ */
+public final class NoteETags {
+
+    private NoteETags() {
+    }
+
+    public static String forNote(Long noteId, Long version) {
+        return quote(notePrefix(noteId) + version);
+    }
+
+    // Version named by an If-Match header for this note, or null when none of its tags do
+    public static Long versionOf(String header, Long noteId) {
+        String prefix = "\"" + notePrefix(noteId);
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String notePrefix(Long noteId) {
+        return "n" + noteId + "-v";
+    }
+
+    // The variant (query string) is part of the tag because each page/fieldset is a different representation
+    public static String forList(Long userId, NoteListStamp listStamp, String variant) {
+        String tag = "l" + userId + "-" + listStamp.noteCount() + "-" + stamp(listStamp.latestUpdate());
+        if (variant != null && !variant.isEmpty()) {
+            tag += "-" + variantDigest(variant);
+        }
+        return quote(tag);
+    }
+
+    // First 64 bits of SHA-256 over the parameters in sorted order, so reordering a query keeps its tag
+    static String variantDigest(String variant) {
+        String[] parameters = variant.split("&");
+        Arrays.sort(parameters);
+        byte[] canonical = String.join("&", parameters).getBytes(StandardCharsets.UTF_8);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // If-None-Match / If-Match comparison: "*" or any listed tag (weak prefix ignored)
+    public static boolean matches(String header, String etag) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stamp(LocalDateTime time) {
+        if (time == null) {
+            return "0";
+        }
+        return Long.toHexString(time.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(time.getNano());
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
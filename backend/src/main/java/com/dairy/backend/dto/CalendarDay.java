@@ -0,0 +1,7 @@
+package com.dairy.backend.dto;
+
+import java.time.LocalDate;
+
+// One heatmap cell: entries created on a day and their combined word count
+public record CalendarDay(LocalDate date, int entries, long words) {
+}
@@ -0,0 +1,32 @@
+package com.dairy.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a user's note list ordered by (updatedAt desc, id desc).
+ * Clients only ever see the encoded form, so the format can change freely.
+ */
+public record NoteCursor(LocalDateTime updatedAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = updatedAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            return new NoteCursor(
+                    LocalDateTime.parse(raw.substring(0, split)),
+                    Long.parseLong(raw.substring(split + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dairy.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Row used to build the per-user date index; wordCount is null on rows not yet backfilled
+public record NoteDateEntry(Long id, LocalDateTime createdAt, Integer wordCount) {
+}
@@ -0,0 +1,76 @@
+package com.dairy.backend.dto;
+
+import com.dairy.backend.model.Notes;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldset requested through {@code ?fields=id,title,...}.
+ * Field order in the response is fixed, not the order of the request.
+ */
+public class NoteFieldSet {
+
+    public static final List<String> FIELDS = List.of("id", "title", "snippet", "content", "createdAt", "updatedAt");
+
+    private final Set<String> fields;
+
+    private NoteFieldSet(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static NoteFieldSet parse(String fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .forEach(field -> {
+                    if (!FIELDS.contains(field)) {
+                        throw new IllegalArgumentException("Unknown field: " + field);
+                    }
+                    selected.add(field);
+                });
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("At least one field is required");
+        }
+        return new NoteFieldSet(selected);
+    }
+
+    // Only selections that include content need the full entity; everything else is served from NoteSummary
+    public boolean needsContent() {
+        return fields.contains("content");
+    }
+
+    public Map<String, Object> select(NoteSummary note) {
+        return select(note.getId(), note.getTitle(), note.getSnippet(), null,
+                note.getCreatedAt(), note.getUpdatedAt());
+    }
+
+    public Map<String, Object> select(Notes note) {
+        return select(note.getId(), note.getTitle(), note.getSnippet(), note.getContent(),
+                note.getCreatedAt(), note.getUpdatedAt());
+    }
+
+    private Map<String, Object> select(Long id, String title, String snippet, String content,
+                                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        put(values, "id", id);
+        put(values, "title", title);
+        put(values, "snippet", snippet);
+        put(values, "content", content);
+        put(values, "createdAt", createdAt);
+        put(values, "updatedAt", updatedAt);
+        return values;
+    }
+
+    private void put(Map<String, Object> values, String field, Object value) {
+        if (fields.contains(field)) {
+            values.put(field, value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.dairy.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One NDJSON line of bulk import output: "progress", "error" (per record) or "complete"
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteImportEvent {
+    private String type;
+    private Integer line;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+}
@@ -0,0 +1,7 @@
+package com.dairy.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Cheap fingerprint of a user's note list: changes on every create, update and delete
+public record NoteListStamp(Long noteCount, LocalDateTime latestUpdate) {
+}
@@ -0,0 +1,32 @@
+package com.dairy.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Incremental update: edits are applied in order to the content of baseVersion
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotePatchRequest {
+
+    @NotNull(message = "Base version is required")
+    private Long baseVersion;
+
+    // Left unchanged when null
+    @Size(max = 255, message = "Title must not exceed 255 characters")
+    private String title;
+
+    @Valid
+    @Size(max = 1000, message = "At most 1000 edits per patch")
+    @Builder.Default
+    private List<@NotNull TextEdit> edits = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.dairy.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Deliberately small: the client already has the text it just edited
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotePatchResponse {
+    private Long id;
+    private Long version;
+    private LocalDateTime updatedAt;
+    private int contentLength;
+}
@@ -1,6 +1,7 @@
 package com.dairy.backend.dto;
 
 
+import com.dairy.backend.tags.TagNames;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -8,6 +9,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Set;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,4 +24,11 @@ public class NoteRequest {
 
     @NotBlank(message = "Content is required")
     private String content;
+
+    // Optional; when omitted on update the note keeps its current tags
+    @Size(max = TagNames.MAX_PER_NOTE, message = "A note can have at most 20 tags")
+    private Set<String> tags;
+
+    // Version the client edited; when set, the update fails with a conflict if the note moved on
+    private Long version;
 }
@@ -4,6 +4,8 @@ import com.dairy.backend.model.Notes;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.TreeSet;
 
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +18,8 @@ public class NoteResponse {
     private String content;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
+    private Set<String> tags;
 
     public NoteResponse(Notes note) {
         this.id = note.getId();
@@ -23,5 +27,7 @@ public class NoteResponse {
         this.content = note.getContent();
         this.createdAt = note.getCreatedAt();
         this.updatedAt = note.getUpdatedAt();
+        this.version = note.getVersion();
+        this.tags = new TreeSet<>(note.getTags());
     }
 }
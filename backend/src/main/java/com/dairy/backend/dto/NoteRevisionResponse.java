@@ -0,0 +1,18 @@
+package com.dairy.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevisionResponse {
+    private Long noteId;
+    private Long revision;
+    private String title;
+    private String content;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.dairy.backend.dto;
+
+import com.dairy.backend.model.RevisionKind;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevisionSummary {
+    private Long revision;
+    private RevisionKind kind;
+    private String title;
+    private LocalDateTime createdAt;
+}
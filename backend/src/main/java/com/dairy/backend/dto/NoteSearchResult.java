@@ -0,0 +1,19 @@
+package com.dairy.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchResult {
+    private Long id;
+    private String title;
+    // HTML-escaped excerpt with matches wrapped in <mark>
+    private String snippet;
+    private double score;
+    private LocalDateTime updatedAt;
+}
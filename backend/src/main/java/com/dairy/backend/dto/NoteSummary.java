@@ -0,0 +1,19 @@
+package com.dairy.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// List-view projection of a note; built straight from a JPQL constructor expression, never touches content
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSummary {
+    private Long id;
+    private String title;
+    private String snippet;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
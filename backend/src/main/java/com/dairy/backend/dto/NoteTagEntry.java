@@ -0,0 +1,7 @@
+package com.dairy.backend.dto;
+
+import java.time.LocalDateTime;
+
+// One row per (note, tag) used to build the tag index; tag is null for untagged notes
+public record NoteTagEntry(Long noteId, LocalDateTime updatedAt, String tag) {
+}
@@ -0,0 +1,5 @@
+package com.dairy.backend.dto;
+
+// Note count and total UTF-8 content size, as stored in or recomputed for user_note_stats
+public record NoteUsage(Long noteCount, Long contentBytes) {
+}
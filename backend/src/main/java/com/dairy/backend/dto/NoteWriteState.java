@@ -0,0 +1,17 @@
+package com.dairy.backend.dto;
+
+import java.time.LocalDateTime;
+
+// The row a single-statement update or delete replaced, read back from H2's OLD TABLE in the same statement.
+// title and content are only selected when revision history needs them; content is in its stored (converted) form.
+public interface NoteWriteState {
+    Long getVersion();
+
+    Long getContentBytes();
+
+    LocalDateTime getCreatedAt();
+
+    String getTitle();
+
+    String getStoredContent();
+}
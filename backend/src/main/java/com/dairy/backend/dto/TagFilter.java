@@ -0,0 +1,20 @@
+package com.dairy.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Bound from ?tag=a&tag=b (all of), ?anyTag=... (at least one of) and ?notTag=... (none of)
+@Data
+@NoArgsConstructor
+public class TagFilter {
+    private List<String> tag = new ArrayList<>();
+    private List<String> anyTag = new ArrayList<>();
+    private List<String> notTag = new ArrayList<>();
+
+    public boolean isEmpty() {
+        return tag.isEmpty() && anyTag.isEmpty() && notTag.isEmpty();
+    }
+}
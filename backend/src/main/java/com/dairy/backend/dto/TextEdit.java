@@ -0,0 +1,23 @@
+package com.dairy.backend.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Replace deleteCount chars at offset with insert; offsets refer to the text after the previous edit
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextEdit {
+    @NotNull
+    @Min(0)
+    private Integer offset;
+
+    @NotNull
+    @Min(0)
+    private Integer deleteCount;
+
+    private String insert;
+}
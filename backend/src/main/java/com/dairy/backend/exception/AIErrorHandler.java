@@ -1,7 +1,9 @@
 package com.dairy.backend.exception;
 
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -13,6 +15,12 @@ public class AIErrorHandler {
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
+    // @PreAuthorize denials; this advice is consulted first, so its Exception handler would turn them into 500s
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDenied(AccessDeniedException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralError(Exception ex) {
         return ResponseEntity.internalServerError()
@@ -0,0 +1,11 @@
+package com.dairy.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class NoteConflictException extends RuntimeException {
+    public NoteConflictException(String message) {
+        super(message);
+    }
+}
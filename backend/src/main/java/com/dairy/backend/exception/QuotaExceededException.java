@@ -0,0 +1,11 @@
+package com.dairy.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
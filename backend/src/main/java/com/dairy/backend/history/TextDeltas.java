@@ -0,0 +1,87 @@
+package com.dairy.backend.history;
+
+import com.dairy.backend.dto.TextEdit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diffing, applying and compact encoding of text edits used by note revisions.
+ * Encoded form is a run of {@code offset,deleteCount,insertLength:insert}
+ * records, so its size follows the size of the change, not of the note.
+ */
+public final class TextDeltas {
+
+    private TextDeltas() {
+    }
+
+    // Single replace edit covering everything between the common prefix and suffix.
+    // Neither may end inside a surrogate pair, or the insert would carry half a character.
+    public static List<TextEdit> diff(String before, String after) {
+        if (before.equals(after)) {
+            return List.of();
+        }
+        int max = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(before.charAt(prefix - 1))) {
+            prefix--;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(before.charAt(before.length() - suffix))) {
+            suffix--;
+        }
+        return List.of(new TextEdit(prefix,
+                before.length() - prefix - suffix,
+                after.substring(prefix, after.length() - suffix)));
+    }
+
+    public static String apply(String text, List<TextEdit> edits) {
+        StringBuilder result = new StringBuilder(text);
+        for (TextEdit edit : edits) {
+            int offset = edit.getOffset();
+            int end = offset + edit.getDeleteCount();
+            if (offset < 0 || edit.getDeleteCount() < 0 || end > result.length()) {
+                throw new IllegalArgumentException("Edit range " + offset + ".." + end
+                        + " is outside the text (length " + result.length() + ")");
+            }
+            result.replace(offset, end, edit.getInsert() == null ? "" : edit.getInsert());
+        }
+        return result.toString();
+    }
+
+    public static String encode(List<TextEdit> edits) {
+        StringBuilder out = new StringBuilder();
+        for (TextEdit edit : edits) {
+            String insert = edit.getInsert() == null ? "" : edit.getInsert();
+            out.append(edit.getOffset()).append(',')
+                    .append(edit.getDeleteCount()).append(',')
+                    .append(insert.length()).append(':')
+                    .append(insert);
+        }
+        return out.toString();
+    }
+
+    public static List<TextEdit> decode(String encoded) {
+        List<TextEdit> edits = new ArrayList<>();
+        int position = 0;
+        while (position < encoded.length()) {
+            int firstComma = encoded.indexOf(',', position);
+            int secondComma = encoded.indexOf(',', firstComma + 1);
+            int colon = encoded.indexOf(':', secondComma + 1);
+            int offset = Integer.parseInt(encoded.substring(position, firstComma));
+            int deleteCount = Integer.parseInt(encoded.substring(firstComma + 1, secondComma));
+            int insertLength = Integer.parseInt(encoded.substring(secondComma + 1, colon));
+            int insertEnd = colon + 1 + insertLength;
+            edits.add(new TextEdit(offset, deleteCount, encoded.substring(colon + 1, insertEnd)));
+            position = insertEnd;
+        }
+        return edits;
+    }
+}
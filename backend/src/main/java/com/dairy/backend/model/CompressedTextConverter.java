@@ -0,0 +1,125 @@
+package com.dairy.backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transparently deflates large note bodies before they reach the TEXT column.
+ * Stored values that start with the control character {@code \u0001} carry a
+ * codec marker; anything else is plain text, so rows written before this
+ * converter existed keep reading back unchanged.
+ *
+ * Compressed bytes are base64-encoded to stay valid text; values are only
+ * stored compressed when that still comes out smaller than the original.
+ *
+ * notes.compression.threshold-bytes sets the smallest body that is deflated
+ * (Hibernate obtains converters through Spring, so the value is injected).
+ * The 2 KiB default comes from CompressedTextConverterTests#breakEven: on
+ * diary-like text smaller bodies keep more than half their size after
+ * base64, so the roughly fixed 10 us of Deflater/Inflater work per write
+ * and read buys only a few hundred bytes.
+ *
+ * Also a Spring bean for the native writes in NoteRepository, which bypass
+ * Hibernate's conversion.
+ */
+@Converter
+@Component
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+
+    static final int DEFAULT_THRESHOLD_BYTES = 2048;
+
+    @Value("${notes.compression.threshold-bytes:" + DEFAULT_THRESHOLD_BYTES + "}")
+    private int thresholdBytes = DEFAULT_THRESHOLD_BYTES;
+
+    private static final char MARKER = '\u0001';
+    private static final String DEFLATE_PREFIX = MARKER + "z1:";
+    // Escapes plain text that happens to start with the marker itself
+    private static final String RAW_PREFIX = MARKER + "r:";
+
+    public CompressedTextConverter() {
+    }
+
+    CompressedTextConverter(int thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= thresholdBytes) {
+            String encoded = DEFLATE_PREFIX + Base64.getEncoder().encodeToString(deflate(raw));
+            if (encoded.length() < text.length()) {
+                return encoded;
+            }
+        }
+        if (!text.isEmpty() && text.charAt(0) == MARKER) {
+            return RAW_PREFIX + text;
+        }
+        return text;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != MARKER) {
+            return stored;
+        }
+        if (stored.startsWith(DEFLATE_PREFIX)) {
+            byte[] compressed = Base64.getDecoder().decode(stored.substring(DEFLATE_PREFIX.length()));
+            return new String(inflate(compressed), StandardCharsets.UTF_8);
+        }
+        if (stored.startsWith(RAW_PREFIX)) {
+            return stored.substring(RAW_PREFIX.length());
+        }
+        return stored;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed note content");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed note content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.dairy.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One saved version of a note. Revision numbers follow Notes.version.
+ * SNAPSHOT rows hold the full content; DELTA rows hold TextDeltas-encoded
+ * edits against the previous revision.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "note_revisions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_note_revisions_note_revision", columnNames = {"note_id", "revision"})
+})
+public class NoteRevision {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_revisions_seq")
+    @SequenceGenerator(name = "note_revisions_seq", sequenceName = "note_revisions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long revision;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RevisionKind kind;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public NoteRevision(Long noteId, Long userId, Long revision, RevisionKind kind, String title, String payload) {
+        this.noteId = noteId;
+        this.userId = userId;
+        this.revision = revision;
+        this.kind = kind;
+        this.title = title;
+        this.payload = payload;
+    }
+}
@@ -2,20 +2,31 @@ package com.dairy.backend.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import com.dairy.backend.tags.TagNames;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import jakarta.validation.constraints.Size;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 import org.hibernate.annotations.UpdateTimestamp;
 @Data
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        @Index(name = "idx_notes_user_updated_id", columnList = "user_id, updated_at DESC, id DESC")
+})
 @RequiredArgsConstructor
 
 public class Notes {
+    public static final int SNIPPET_LENGTH = 200;
+
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (bulk import)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -25,8 +36,28 @@ public class Notes {
 
     @NotBlank(message = "Content is required")
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String content;
 
+    // Short plain-text preview so list views never have to read the content column
+    @Column(name = "snippet", length = SNIPPET_LENGTH)
+    private String snippet;
+
+    // UTF-8 size of content; kept as a column because content itself may be stored compressed
+    @Column(name = "content_bytes")
+    private Long contentBytes;
+
+    @Column(name = "word_count")
+    private Integer wordCount;
+
+    // Bulk writes in NoteRepository maintain note_tags directly (deleteTags / insertTag)
+    @ElementCollection
+    @CollectionTable(name = "note_tags", joinColumns = @JoinColumn(name = "note_id"),
+            indexes = @Index(name = "idx_note_tags_tag", columnList = "tag"))
+    @Column(name = "tag", length = TagNames.MAX_LENGTH, nullable = false)
+    @BatchSize(size = 100)
+    private Set<String> tags = new HashSet<>();
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -34,10 +65,56 @@ public class Notes {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Optimistic locking; also bumped by the bulk update in NoteRepository.updateOwned
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     public Notes(String title, String content, Long userId) {
     }
+
+    @PrePersist
+    @PreUpdate
+    void refreshDerivedColumns() {
+        this.snippet = snippetOf(content);
+        this.contentBytes = contentBytesOf(content);
+        this.wordCount = wordCountOf(content);
+    }
+
+    // Runs of non-whitespace characters
+    public static int wordCountOf(String content) {
+        if (content == null) {
+            return 0;
+        }
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < content.length(); i++) {
+            boolean whitespace = Character.isWhitespace(content.charAt(i));
+            if (!whitespace && !inWord) {
+                words++;
+            }
+            inWord = !whitespace;
+        }
+        return words;
+    }
+
+    public static long contentBytesOf(String content) {
+        return content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public static String snippetOf(String content) {
+        if (content == null) {
+            return null;
+        }
+        String collapsed = content.strip().replaceAll("\\s+", " ");
+        if (collapsed.length() <= SNIPPET_LENGTH) {
+            return collapsed;
+        }
+        int end = Character.isHighSurrogate(collapsed.charAt(SNIPPET_LENGTH - 1)) ? SNIPPET_LENGTH - 1 : SNIPPET_LENGTH;
+        return collapsed.substring(0, end);
+    }
 }
@@ -0,0 +1,6 @@
+package com.dairy.backend.model;
+
+public enum RevisionKind {
+    SNAPSHOT,
+    DELTA
+}
@@ -0,0 +1,33 @@
+package com.dairy.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A single token revoked by logout, identified by its jti claim. Kept only
+ * until the token would have expired anyway.
+ */
+@Data
+@Entity
+@Table(name = "revoked_tokens")
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
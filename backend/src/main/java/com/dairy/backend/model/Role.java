@@ -1,5 +1,6 @@
 package com.dairy.backend.model;
 
 public enum Role {
-    USER
+    USER,
+    ADMIN
 }
@@ -0,0 +1,32 @@
+package com.dairy.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user note aggregates, maintained in the same transaction as every note
+ * write so counts and quota checks never have to scan the notes table.
+ */
+@Data
+@Entity
+@Table(name = "user_note_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserNoteStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "note_count", nullable = false)
+    private long noteCount;
+
+    // Sum of Notes.contentBytes
+    @Column(name = "content_bytes", nullable = false)
+    private long contentBytes;
+}
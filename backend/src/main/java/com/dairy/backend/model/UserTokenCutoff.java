@@ -0,0 +1,34 @@
+package com.dairy.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Logout from every device: all of the user's tokens issued before
+ * revokedBefore (truncated to the second, like iat) are rejected. The row is dropped at expiresAt, once every
+ * such token has expired on its own.
+ */
+@Data
+@Entity
+@Table(name = "user_token_cutoffs")
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTokenCutoff {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_before", nullable = false)
+    private Instant revokedBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
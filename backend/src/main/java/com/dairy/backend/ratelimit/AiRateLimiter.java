@@ -0,0 +1,51 @@
+package com.dairy.backend.ratelimit;
+
+import com.dairy.backend.security.JwtPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user request budget for the AI endpoints (REST generate and the
+ * WebSocket chat share one bucket per user). The hot path is a map read and
+ * a CAS on that user's bucket, so users never contend with each other.
+ */
+@Component
+public class AiRateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitDecision tryAcquire(JwtPrincipal principal) {
+        RateLimitProperties.Budget budget = budgetFor(principal);
+        if (!properties.isEnabled() || budget == null || budget.getCapacity() <= 0 || budget.getRefillPerMinute() <= 0) {
+            return RateLimitDecision.unlimited();
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(principal.id());
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(principal.id(), id -> new TokenBucket(now));
+        }
+        long intervalNanos = TimeUnit.MINUTES.toNanos(1) / budget.getRefillPerMinute();
+        return bucket.tryAcquire(now, budget.getCapacity(), intervalNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.SECONDS.toNanos(properties.getIdleEvictionSeconds());
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    private RateLimitProperties.Budget budgetFor(JwtPrincipal principal) {
+        Map<String, RateLimitProperties.Budget> roles = properties.getRoles();
+        RateLimitProperties.Budget budget = roles.get(principal.role().name());
+        return budget != null ? budget : roles.get("USER");
+    }
+}
@@ -0,0 +1,19 @@
+package com.dairy.backend.ratelimit;
+
+// Outcome of one acquire: requests left in the current budget, or how long to wait before retrying
+public record RateLimitDecision(boolean allowed, long remaining, long retryAfterSeconds) {
+
+    private static final RateLimitDecision UNLIMITED = new RateLimitDecision(true, -1, 0);
+
+    static RateLimitDecision allowed(long remaining) {
+        return new RateLimitDecision(true, remaining, 0);
+    }
+
+    static RateLimitDecision denied(long retryAfterSeconds) {
+        return new RateLimitDecision(false, 0, Math.max(1, retryAfterSeconds));
+    }
+
+    static RateLimitDecision unlimited() {
+        return UNLIMITED;
+    }
+}
@@ -0,0 +1,38 @@
+package com.dairy.backend.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ai.rate-limit.* settings. Budgets are keyed by role name, e.g.
+ * ai.rate-limit.roles.USER.capacity=10; a role without its own entry uses
+ * the USER budget.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Buckets untouched this long are full again and can be dropped
+    private long idleEvictionSeconds = 600;
+
+    private Map<String, Budget> roles = new HashMap<>(Map.of("USER", new Budget(10, 6)));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Budget {
+        // Burst size: requests allowed back to back from a full bucket
+        private int capacity;
+        // Steady-state rate the bucket refills at
+        private int refillPerMinute;
+    }
+}
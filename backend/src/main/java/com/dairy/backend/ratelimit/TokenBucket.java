@@ -0,0 +1,47 @@
+package com.dairy.backend.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket whose whole state is one long: the instant (System.nanoTime)
+ * at which the bucket will be full again. Taking a token pushes that instant
+ * one refill interval further out; the request is allowed while it stays
+ * within capacity intervals of now. This is the GCRA form of a token bucket,
+ * so an acquire is a single CAS and never blocks.
+ *
+ * Capacity and interval are passed on every call, so a budget change applies
+ * to existing buckets immediately.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt;
+
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    RateLimitDecision tryAcquire(long now, int capacity, long intervalNanos) {
+        long window = capacity * intervalNanos;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long debt = next - now;
+            if (debt > window) {
+                long waitNanos = debt - window;
+                return RateLimitDecision.denied(divideUp(waitNanos, 1_000_000_000L));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return RateLimitDecision.allowed((window - debt) / intervalNanos);
+            }
+        }
+    }
+
+    // A bucket that has been full for a while holds no state worth keeping
+    boolean isIdle(long now, long idleNanos) {
+        return now - fullAt.get() > idleNanos;
+    }
+
+    private static long divideUp(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
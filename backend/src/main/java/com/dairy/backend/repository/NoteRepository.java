@@ -1,8 +1,15 @@
 package com.dairy.backend.repository;
 
+import com.dairy.backend.dto.NoteDateEntry;
+import com.dairy.backend.dto.NoteListStamp;
+import com.dairy.backend.dto.NoteSummary;
+import com.dairy.backend.dto.NoteTagEntry;
+import com.dairy.backend.dto.NoteUsage;
+import com.dairy.backend.dto.NoteWriteState;
 import com.dairy.backend.model.Notes;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,6 +17,8 @@ import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,9 +27,143 @@ import java.util.Optional;
 public interface NoteRepository extends JpaRepository<Notes, Long> {
 
     List<Notes> findByUserIdOrderByUpdatedAtDesc(Long userId);
+
+    // Keyset pagination over idx_notes_user_updated_id: first page, then seek past the cursor
+    List<Notes> findByUserIdOrderByUpdatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notes n WHERE n.user.id = :userId " +
+            "AND (n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<Notes> findPageAfter(@Param("userId") Long userId,
+                              @Param("updatedAt") LocalDateTime updatedAt,
+                              @Param("id") Long id,
+                              Pageable pageable);
+
+    // Summary projections: same ordering and index as above, without reading the content column
+    String SUMMARY_SELECT = "SELECT new com.dairy.backend.dto.NoteSummary(n.id, n.title, n.snippet, n.createdAt, n.updatedAt) " +
+            "FROM Notes n WHERE n.user.id = :userId ";
+
+    @Query(SUMMARY_SELECT + "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY_SELECT + "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findSummaryPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+            "AND (n.updatedAt < :updatedAt OR (n.updatedAt = :updatedAt AND n.id < :id)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<NoteSummary> findSummaryPageAfter(@Param("userId") Long userId,
+                                           @Param("updatedAt") LocalDateTime updatedAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "AND n.id IN :ids ORDER BY n.createdAt DESC")
+    List<NoteSummary> findSummariesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.dairy.backend.dto.NoteTagEntry(n.id, n.updatedAt, t) " +
+            "FROM Notes n LEFT JOIN n.tags t WHERE n.user.id = :userId")
+    List<NoteTagEntry> findTagEntriesByUserId(@Param("userId") Long userId);
+
+    // note_tags is written directly because the bulk update/delete statements bypass the entity collection
+    @Modifying
+    @Query(value = "DELETE FROM note_tags WHERE note_id = :noteId", nativeQuery = true)
+    int deleteTags(@Param("noteId") Long noteId);
+
+    @Query(value = "SELECT tag FROM note_tags WHERE note_id = :noteId", nativeQuery = true)
+    List<String> findTagsByNoteId(@Param("noteId") Long noteId);
+
+    @Modifying
+    @Query(value = "INSERT INTO note_tags (note_id, tag) VALUES (:noteId, :tag)", nativeQuery = true)
+    int insertTag(@Param("noteId") Long noteId, @Param("tag") String tag);
+
+    // Everything the calendar index needs, without the content column
+    @Query("SELECT new com.dairy.backend.dto.NoteDateEntry(n.id, n.createdAt, n.wordCount) " +
+            "FROM Notes n WHERE n.user.id = :userId")
+    List<NoteDateEntry> findDateEntriesByUserId(@Param("userId") Long userId);
+
     List<Notes> findByUserIdAndTitleContainingIgnoreCase(Long userId, String title);
+    List<Notes> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    // Modification stamps for conditional requests; both are answered from indexes
+    @Query("SELECT new com.dairy.backend.dto.NoteListStamp(COUNT(n), MAX(n.updatedAt)) FROM Notes n WHERE n.user.id = :userId")
+    NoteListStamp findListStampByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT n.version FROM Notes n WHERE n.id = :id AND n.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Recomputes user_note_stats (reconciliation and first write after an upgrade)
+    @Query("SELECT new com.dairy.backend.dto.NoteUsage(COUNT(n), COALESCE(SUM(n.contentBytes), 0L)) " +
+            "FROM Notes n WHERE n.user.id = :userId")
+    NoteUsage findUsageByUserId(@Param("userId") Long userId);
+
+    // Rows written before content_bytes / word_count existed
+    List<Notes> findByContentBytesIsNullOrWordCountIsNull(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Notes n SET n.contentBytes = :contentBytes, n.wordCount = :wordCount WHERE n.id = :id")
+    int setContentSizes(@Param("id") Long id,
+                        @Param("contentBytes") Long contentBytes,
+                        @Param("wordCount") Integer wordCount);
+
+    // Single-statement, ownership-checked update that also returns the row it replaced (H2 data change delta table),
+    // so the caller gets the old size and version without reading the note first. content must already be converted.
+    String UPDATE_OWNED_SQL = "UPDATE notes SET title = :title, content = :content, snippet = :snippet, " +
+            "content_bytes = :contentBytes, word_count = :wordCount, updated_at = :updatedAt, version = version + 1 " +
+            "WHERE id = :id AND user_id = :userId AND (CAST(:version AS BIGINT) IS NULL OR version = :version)";
+
+    @Query(value = "SELECT version, content_bytes AS \"contentBytes\", created_at AS \"createdAt\", " +
+            "NULL AS \"title\", NULL AS \"storedContent\" FROM OLD TABLE (" + UPDATE_OWNED_SQL + ")", nativeQuery = true)
+    Optional<NoteWriteState> updateOwnedReturningPrevious(@Param("id") Long id,
+                                                          @Param("userId") Long userId,
+                                                          @Param("title") String title,
+                                                          @Param("content") String content,
+                                                          @Param("snippet") String snippet,
+                                                          @Param("contentBytes") Long contentBytes,
+                                                          @Param("wordCount") Integer wordCount,
+                                                          @Param("updatedAt") LocalDateTime updatedAt,
+                                                          @Param("version") Long version);
+
+    // Same, also returning the previous title and content for revision history
+    @Query(value = "SELECT version, content_bytes AS \"contentBytes\", created_at AS \"createdAt\", " +
+            "title AS \"title\", content AS \"storedContent\" FROM OLD TABLE (" + UPDATE_OWNED_SQL + ")", nativeQuery = true)
+    Optional<NoteWriteState> updateOwnedReturningPreviousText(@Param("id") Long id,
+                                                              @Param("userId") Long userId,
+                                                              @Param("title") String title,
+                                                              @Param("content") String content,
+                                                              @Param("snippet") String snippet,
+                                                              @Param("contentBytes") Long contentBytes,
+                                                              @Param("wordCount") Integer wordCount,
+                                                              @Param("updatedAt") LocalDateTime updatedAt,
+                                                              @Param("version") Long version);
+
+    @Query(value = "SELECT version, content_bytes AS \"contentBytes\", created_at AS \"createdAt\", " +
+            "NULL AS \"title\", NULL AS \"storedContent\" " +
+            "FROM OLD TABLE (DELETE FROM notes WHERE id = :id AND user_id = :userId)", nativeQuery = true)
+    Optional<NoteWriteState> deleteOwnedReturningPrevious(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Ownership-checked, so it can run before the note row itself is deleted
+    @Modifying
+    @Query(value = "DELETE FROM note_tags WHERE note_id = :noteId " +
+            "AND EXISTS (SELECT 1 FROM notes WHERE id = :noteId AND user_id = :userId)", nativeQuery = true)
+    int deleteTagsOwned(@Param("noteId") Long noteId, @Param("userId") Long userId);
+
+    // Version-checked JPQL update for PATCH, which has already read the note; callers use the affected-row count
+    @Modifying
+    @Query("UPDATE Notes n SET n.title = :title, n.content = :content, n.snippet = :snippet, " +
+            "n.contentBytes = :contentBytes, n.wordCount = :wordCount, " +
+            "n.updatedAt = :updatedAt, n.version = n.version + 1 " +
+            "WHERE n.id = :id AND n.user.id = :userId AND (:version IS NULL OR n.version = :version)")
+    int updateOwned(@Param("id") Long id,
+                    @Param("userId") Long userId,
+                    @Param("title") String title,
+                    @Param("content") String content,
+                    @Param("snippet") String snippet,
+                    @Param("contentBytes") Long contentBytes,
+                    @Param("wordCount") Integer wordCount,
+                    @Param("updatedAt") LocalDateTime updatedAt,
+                    @Param("version") Long version);
+
     Optional<Notes> findByIdAndUserId(Long id, Long userId);
-    void deleteByIdAndUserId(Long id, Long userId);
     long countByUserId(Long userId);
 
 }
@@ -0,0 +1,33 @@
+package com.dairy.backend.repository;
+
+import com.dairy.backend.dto.NoteRevisionSummary;
+import com.dairy.backend.model.NoteRevision;
+import com.dairy.backend.model.RevisionKind;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+    @Query("SELECT new com.dairy.backend.dto.NoteRevisionSummary(r.revision, r.kind, r.title, r.createdAt) " +
+            "FROM NoteRevision r WHERE r.noteId = :noteId AND r.userId = :userId ORDER BY r.revision DESC")
+    List<NoteRevisionSummary> findSummaries(@Param("noteId") Long noteId, @Param("userId") Long userId);
+
+    // Nearest snapshot at or before the requested revision
+    Optional<NoteRevision> findFirstByNoteIdAndUserIdAndKindAndRevisionLessThanEqualOrderByRevisionDesc(
+            Long noteId, Long userId, RevisionKind kind, Long revision);
+
+    List<NoteRevision> findByNoteIdAndRevisionBetweenOrderByRevisionAsc(Long noteId, Long from, Long to);
+
+    boolean existsByNoteIdAndRevision(Long noteId, Long revision);
+
+    @Modifying
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId AND r.userId = :userId")
+    int deleteByNote(@Param("noteId") Long noteId, @Param("userId") Long userId);
+}
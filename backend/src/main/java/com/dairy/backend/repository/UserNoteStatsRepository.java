@@ -0,0 +1,43 @@
+package com.dairy.backend.repository;
+
+import com.dairy.backend.model.UserNoteStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserNoteStatsRepository extends JpaRepository<UserNoteStats, Long> {
+
+    // Applies a delta only if growth stays within the quota; shrinking always succeeds
+    @Modifying
+    @Query("UPDATE UserNoteStats s SET s.noteCount = s.noteCount + :notes, s.contentBytes = s.contentBytes + :bytes " +
+            "WHERE s.userId = :userId " +
+            "AND (:notes <= 0 OR s.noteCount + :notes <= :maxNotes) " +
+            "AND (:bytes <= 0 OR s.contentBytes + :bytes <= :maxBytes)")
+    int adjustWithinQuota(@Param("userId") Long userId,
+                          @Param("notes") long notes,
+                          @Param("bytes") long bytes,
+                          @Param("maxNotes") long maxNotes,
+                          @Param("maxBytes") long maxBytes);
+
+    // Seeds the row from the notes table unless it already exists; never overwrites one.
+    // Callers hold the user's row lock (UserRepository.lockById), so two seeders can't both pass NOT EXISTS.
+    @Modifying
+    @Query(value = "INSERT INTO user_note_stats (user_id, note_count, content_bytes) " +
+            "SELECT :userId, u.note_count, u.content_bytes FROM " +
+            "(SELECT COUNT(*) AS note_count, COALESCE(SUM(content_bytes), 0) AS content_bytes " +
+            "FROM notes WHERE user_id = :userId) u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_note_stats WHERE user_id = :userId)", nativeQuery = true)
+    int insertFromNotes(@Param("userId") Long userId);
+
+    // Row lock for reconciliation; note writers queue behind it on their adjust
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserNoteStats s WHERE s.userId = :userId")
+    Optional<UserNoteStats> findForUpdate(@Param("userId") Long userId);
+}
@@ -2,7 +2,11 @@ package com.dairy.backend.repository;
 
 import com.dairy.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +16,22 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User,Long> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    // Account state checked by AccountStatusCache; empty when the user no longer exists
+    @Query("SELECT CASE WHEN u.enabled = true AND u.accountNonLocked = true AND u.accountNonExpired = true " +
+            "THEN true ELSE false END FROM User u WHERE u.id = :id")
+    Optional<Boolean> isActive(@Param("id") Long id);
+
+    // Row lock that serialises seeding a user's note stats; held until the caller's transaction ends
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    // Used to upgrade a hash after a successful login without loading the user again
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
@@ -0,0 +1,4 @@
+package com.dairy.backend.search;
+
+public record SearchHit(long noteId, double score) {
+}
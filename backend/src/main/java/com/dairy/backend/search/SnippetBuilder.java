@@ -0,0 +1,53 @@
+package com.dairy.backend.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Collection;
+
+/**
+ * Builds a short, HTML-escaped excerpt around the first query match with
+ * every matched term wrapped in {@code <mark>}.
+ */
+public final class SnippetBuilder {
+
+    private static final int CONTEXT_CHARS = 80;
+
+    private SnippetBuilder() {
+    }
+
+    public static String build(String text, Collection<String> queryTerms, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        int[] firstMatch = {-1};
+        Tokenizer.forEachToken(text, (token, start, end) -> {
+            if (firstMatch[0] < 0 && queryTerms.contains(token)) {
+                firstMatch[0] = start;
+            }
+        });
+
+        int from = firstMatch[0] < 0 ? 0 : Math.max(0, firstMatch[0] - CONTEXT_CHARS);
+        int to = Math.min(text.length(), from + maxLength);
+        String window = text.substring(from, to);
+
+        StringBuilder snippet = new StringBuilder(window.length() + 32);
+        if (from > 0) {
+            snippet.append("...");
+        }
+        int[] cursor = {0};
+        Tokenizer.forEachToken(window, (token, start, end) -> {
+            if (queryTerms.contains(token)) {
+                snippet.append(HtmlUtils.htmlEscape(window.substring(cursor[0], start)))
+                        .append("<mark>")
+                        .append(HtmlUtils.htmlEscape(window.substring(start, end)))
+                        .append("</mark>");
+                cursor[0] = end;
+            }
+        });
+        snippet.append(HtmlUtils.htmlEscape(window.substring(cursor[0])));
+        if (to < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+}
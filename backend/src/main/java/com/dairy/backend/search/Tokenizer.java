@@ -0,0 +1,74 @@
+package com.dairy.backend.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits text into lowercase letter/digit runs and drops common English stop words.
+ * Used for both indexing and querying so the two always agree on terms.
+ */
+public final class Tokenizer {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into",
+            "is", "it", "no", "not", "of", "on", "or", "so", "such", "that", "the", "their",
+            "then", "there", "these", "they", "this", "to", "was", "will", "with", "i", "me",
+            "my", "we", "you");
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(text, (token, start, end) -> tokens.add(token));
+        return tokens;
+    }
+
+    // Term frequencies for a single field, scaled by the field weight
+    public static void countTerms(String text, int weight, Map<String, Integer> into) {
+        forEachToken(text, (token, start, end) -> into.merge(token, weight, Integer::sum));
+    }
+
+    public static Map<String, Integer> termFrequencies(String title, int titleWeight, String content) {
+        Map<String, Integer> terms = new HashMap<>();
+        countTerms(title, titleWeight, terms);
+        countTerms(content, 1, terms);
+        return terms;
+    }
+
+    static void forEachToken(String text, TokenConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int tokenLength = i - start;
+            if (tokenLength >= MIN_TOKEN_LENGTH && tokenLength <= MAX_TOKEN_LENGTH) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!STOP_WORDS.contains(token)) {
+                    consumer.accept(token, start, i);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface TokenConsumer {
+        void accept(String token, int start, int end);
+    }
+}
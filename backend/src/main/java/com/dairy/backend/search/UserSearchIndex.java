@@ -0,0 +1,217 @@
+package com.dairy.backend.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory inverted index over one user's notes with BM25 ranking.
+ * The forward map (note -> term frequencies) is kept so a note can be
+ * removed or replaced without rescanning, and it is what gets persisted;
+ * postings are rebuilt from it on load.
+ *
+ * Each note's updatedAt is kept too, so a snapshot carries the Stamp of
+ * exactly the state it contains (see NoteSearchService).
+ */
+public class UserSearchIndex {
+
+    // Note count and latest updatedAt: identifies the database state an index reflects
+    public record Stamp(long noteCount, String latestUpdate) {
+
+        // Millisecond precision, so values that went through the database compare equal
+        public static Stamp of(long noteCount, LocalDateTime latestUpdate) {
+            return new Stamp(noteCount, latestUpdate == null ? "" : latestUpdate.truncatedTo(ChronoUnit.MILLIS).toString());
+        }
+    }
+
+    private static final int FORMAT_VERSION = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private final Map<Long, LocalDateTime> updated = new HashMap<>();
+    private long totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(long noteId, LocalDateTime updatedAt, Map<String, Integer> terms) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(noteId);
+            updated.put(noteId, updatedAt);
+            int length = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>())
+                        .put(noteId, term.getValue());
+                length += term.getValue();
+            }
+            documents.put(noteId, terms);
+            lengths.put(noteId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long noteId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(noteId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(long noteId) {
+        Map<String, Integer> previous = documents.remove(noteId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(noteId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths.remove(noteId);
+        updated.remove(noteId);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stamp stamp() {
+        lock.readLock().lock();
+        try {
+            return stampInternal();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Stamp stampInternal() {
+        LocalDateTime latest = null;
+        for (LocalDateTime updatedAt : updated.values()) {
+            if (updatedAt != null && (latest == null || updatedAt.isAfter(latest))) {
+                latest = updatedAt;
+            }
+        }
+        return Stamp.of(documents.size(), latest);
+    }
+
+    // Only the postings of the query terms are touched, so cost follows the number of matches
+    public List<SearchHit> search(Collection<String> queryTerms, int limit) {
+        return search(queryTerms, limit, noteId -> true);
+    }
+
+    // Notes rejected by the filter are skipped before scoring, so the top hits are taken among the rest
+    public List<SearchHit> search(Collection<String> queryTerms, int limit, LongPredicate filter) {
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / docCount;
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                for (Map.Entry<Long, Integer> posting : list.entrySet()) {
+                    if (!filter.test(posting.getKey())) {
+                        continue;
+                    }
+                    int tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * lengths.get(posting.getKey()) / avgLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingDouble(SearchHit::score));
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                top.offer(new SearchHit(score.getKey(), score.getValue()));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort(Comparator.comparingDouble(SearchHit::score).reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Writes the stamp and the documents under one read lock, so the stamp describes exactly what was written
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            Stamp stamp = stampInternal();
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(stamp.noteCount());
+            out.writeUTF(stamp.latestUpdate());
+            out.writeInt(documents.size());
+            for (Map.Entry<Long, Map<String, Integer>> document : documents.entrySet()) {
+                out.writeLong(document.getKey());
+                LocalDateTime updatedAt = updated.get(document.getKey());
+                out.writeUTF(updatedAt == null ? "" : updatedAt.toString());
+                out.writeInt(document.getValue().size());
+                for (Map.Entry<String, Integer> term : document.getValue().entrySet()) {
+                    out.writeUTF(term.getKey());
+                    out.writeInt(term.getValue());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reads the header written by writeTo; call readFrom next to load the documents
+    public static Stamp readStamp(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported search index format");
+        }
+        return new Stamp(in.readLong(), in.readUTF());
+    }
+
+    public static UserSearchIndex readFrom(DataInputStream in) throws IOException {
+        UserSearchIndex index = new UserSearchIndex();
+        int documentCount = in.readInt();
+        for (int d = 0; d < documentCount; d++) {
+            long noteId = in.readLong();
+            String updatedAt = in.readUTF();
+            int termCount = in.readInt();
+            Map<String, Integer> terms = new HashMap<>(termCount * 2);
+            for (int t = 0; t < termCount; t++) {
+                terms.put(in.readUTF(), in.readInt());
+            }
+            index.put(noteId, updatedAt.isEmpty() ? null : LocalDateTime.parse(updatedAt), terms);
+        }
+        return index;
+    }
+}
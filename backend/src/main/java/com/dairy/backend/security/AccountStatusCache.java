@@ -0,0 +1,60 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in check (security.account-check.enabled) that a token's account is
+ * still enabled and unlocked. Results are cached for a few seconds so the
+ * check costs at most one small query per user per TTL rather than one per
+ * request; disabling an account takes effect within that window.
+ */
+@Component
+public class AccountStatusCache {
+
+    private record Entry(boolean active, long expiresAt) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${security.account-check.enabled:false}")
+    private boolean enabled;
+
+    @Value("${security.account-check.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${security.account-check.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public boolean isActive(Long userId) {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.active();
+        }
+        boolean active = userRepository.isActive(userId).orElse(false);
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(stale -> stale.expiresAt() <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(userId, new Entry(active, now + ttlSeconds * 1000));
+        return active;
+    }
+
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+}
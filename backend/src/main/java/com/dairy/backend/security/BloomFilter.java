@@ -0,0 +1,65 @@
+package com.dairy.backend.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Lookups and inserts are lock-free;
+ * a negative answer is definite, a positive one must be confirmed elsewhere.
+ * Entries can't be removed, so owners rebuild a fresh filter to forget them.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        int entries = Math.max(1, expectedEntries);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * ln2));
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (current, m) -> current | m);
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combined) {
+        return (combined & 0x7fffffffL) % bitCount;
+    }
+
+    // FNV-1a over the chars, finished with the SplitMix64 mixer so both halves are usable
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
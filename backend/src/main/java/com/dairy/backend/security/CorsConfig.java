@@ -19,11 +19,14 @@ public class CorsConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:8080"));
 
         // Allow all HTTP methods including OPTIONS
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
 
         // Allow all headers
         configuration.setAllowedHeaders(Arrays.asList("*"));
 
+        // Let the frontend read ETags for conditional requests
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
+
         // CRUCIAL: Allow credentials for JWT
         configuration.setAllowCredentials(true);
 
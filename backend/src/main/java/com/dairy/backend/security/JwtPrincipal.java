@@ -0,0 +1,34 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Authenticated user as carried by the JWT. Built from the token claims alone,
+ * so authenticating a request needs no database lookup. Controllers receive it
+ * as a handler argument (see CurrentUserArgumentResolver).
+ *
+ * tokenId (jti), issuedAt and expiresAt describe the token itself and are used
+ * for revocation; tokenId is null for tokens issued before it was added.
+ *
+ * Deliberately not a java.security.Principal: Spring MVC's built-in Principal
+ * resolver runs before custom resolvers and would claim the parameter.
+ * AuthenticatedPrincipal still gives Authentication.getName() the username.
+ */
+public record JwtPrincipal(Long id, String username, Role role,
+                           String tokenId, Instant issuedAt, Instant expiresAt) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
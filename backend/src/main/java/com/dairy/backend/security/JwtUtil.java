@@ -1,40 +1,48 @@
 package com.dairy.backend.security;
 
+import com.dairy.backend.model.Role;
 import com.dairy.backend.model.User;
-import com.dairy.backend.repository.UserRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Autowired
-    private UserRepository userRepository;
-
-
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiry;
 
-    //Generate secret key
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Key, parser and cache are built once; JwtParser is immutable and thread-safe
+    private SecretKey secretKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        verifiedTokens = new VerifiedTokenCache(verifiedCacheMaxEntries);
     }
 
     //extract username from token
@@ -57,28 +65,44 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    //Extract All Claims
+    //Extract All Claims (signature and expiry are checked once per distinct token, then served from cache)
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = verifiedTokens.get(token);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokens.put(token, claims);
+        }
+        return claims;
+    }
+
+    // Verifies signature and expiry, then builds the principal from the claims alone (no database access)
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims = extractAllClaims(token);
+        Long userId = claims.get("userId", Long.class);
+        if (userId == null || claims.getSubject() == null) {
+            throw new JwtException("Token does not identify a user");
+        }
+        // Tokens issued before the role claim existed belong to regular users
+        String role = claims.get("role", String.class);
+        return new JwtPrincipal(userId, claims.getSubject(), role == null ? Role.USER : Role.valueOf(role),
+                claims.getId(), toInstant(claims.getIssuedAt()), toInstant(claims.getExpiration()));
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 
     //Check if token expires
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     //Generate new token
-    public String generateToken(UserDetails userDetails){
-        User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+    public String generateToken(User user){
         Map<String, Object> claims=new HashMap<>();
         claims.put("userId", user.getId());
-        return createToken(claims,userDetails.getUsername());
+        claims.put("role", user.getRole().name());
+        return createToken(claims,user.getUsername());
     }
 
     //Create token with claims and subject
@@ -87,26 +111,23 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis()+expiry))
-                .signWith(getSecretKey())
+                .signWith(secretKey)
                 .compact();
     }
 
     // Validate token
     public Boolean validateToken(String token,UserDetails userDetails){
-        final String username=extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims=extractAllClaims(token);
+        return (userDetails.getUsername().equals(claims.getSubject()) && !isExpired(claims));
     }
 
     //check if token is valid
     public boolean isTokenValid(String token){
         try{
-            Jwts.parserBuilder()
-                    .setSigningKey(getSecretKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            return !isExpired(extractAllClaims(token));
         }catch (JwtException | IllegalArgumentException e){
             return false;
         }
@@ -0,0 +1,91 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small dedicated pool so a burst of logins can use at most
+ * security.password.hash-threads cores and never starves note requests.
+ * Work beyond the queue is shed with TooManyRequestsException (429) rather
+ * than piling up behind hashes that would finish after the client gave up.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    public PasswordHashingService(
+            @Value("${security.password.hash-threads:0}") int threads,
+            @Value("${security.password.hash-queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.retry-after-seconds:2}") long retryAfterSeconds) {
+        // 0 means half the cores, leaving the rest for everything else
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // True when the stored hash was made with a lower cost than the one configured now
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many sign-in attempts in progress, please retry shortly",
+                    retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,125 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.model.RevokedToken;
+import com.dairy.backend.model.UserTokenCutoff;
+import com.dairy.backend.repository.RevokedTokenRepository;
+import com.dairy.backend.repository.UserTokenCutoffRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token revocation (logout and logout-everywhere) without a query per request.
+ *
+ * Revoked token ids sit in an exact map fronted by a Bloom filter, so the
+ * usual not-revoked check is a few hash probes; the map is only consulted on
+ * a filter hit. Per-user cutoffs reject every token issued before the second
+ * of a logout-all. Both are written through to the database and
+ * reloaded at startup, and entries are purged once the tokens they cover
+ * have expired on their own.
+ */
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserTokenCutoffRepository cutoffRepository;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    @Value("${security.revocation.expected-entries:10000}")
+    private int expectedEntries;
+
+    // token id -> token expiry
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    // user id -> tokens issued before this instant (whole seconds) are revoked
+    private final Map<Long, UserTokenCutoff> cutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    @PostConstruct
+    void load() {
+        Instant now = Instant.now();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+            revokedTokens.put(token.getTokenId(), token.getExpiresAt());
+        }
+        for (UserTokenCutoff cutoff : cutoffRepository.findByExpiresAtAfter(now)) {
+            cutoffs.put(cutoff.getUserId(), cutoff);
+        }
+        rebuildFilter();
+        logger.info("Loaded {} revoked tokens and {} user cutoffs", revokedTokens.size(), cutoffs.size());
+    }
+
+    public boolean isRevoked(JwtPrincipal principal) {
+        if (!cutoffs.isEmpty()) {
+            UserTokenCutoff cutoff = cutoffs.get(principal.id());
+            if (cutoff != null && (principal.issuedAt() == null
+                    || principal.issuedAt().isBefore(cutoff.getRevokedBefore()))) {
+                return true;
+            }
+        }
+        String tokenId = principal.tokenId();
+        return tokenId != null && filter.mightContain(tokenId) && revokedTokens.containsKey(tokenId);
+    }
+
+    // Revokes a single token; returns false for older tokens that carry no id
+    public synchronized boolean revoke(JwtPrincipal principal) {
+        if (principal.tokenId() == null) {
+            return false;
+        }
+        Instant expiresAt = principal.expiresAt() != null
+                ? principal.expiresAt()
+                : Instant.now().plusMillis(tokenLifetimeMs);
+        revokedTokenRepository.save(new RevokedToken(principal.tokenId(), principal.id(), expiresAt));
+        revokedTokens.put(principal.tokenId(), expiresAt);
+        filter.add(principal.tokenId());
+        return true;
+    }
+
+    public void revokeAll(Long userId) {
+        Instant now = Instant.now();
+        // iat has whole-second precision. Cutting at the start of this second keeps a login right after the
+        // logout-all valid; tokens issued earlier in the same second survive too, a window under a second.
+        Instant cutoffSecond = now.truncatedTo(ChronoUnit.SECONDS);
+        // No token issued before now can outlive one full token lifetime from now
+        UserTokenCutoff cutoff = new UserTokenCutoff(userId, cutoffSecond, now.plusMillis(tokenLifetimeMs));
+        cutoffRepository.save(cutoff);
+        cutoffs.put(userId, cutoff);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int tokens = revokedTokenRepository.deleteExpired(now);
+        int users = cutoffRepository.deleteExpired(now);
+        cutoffs.values().removeIf(cutoff -> !cutoff.getExpiresAt().isAfter(now));
+        if (revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now))) {
+            // The filter can't forget entries, so start a fresh one from what is left
+            rebuildFilter();
+        }
+        if (tokens > 0 || users > 0) {
+            logger.info("Purged {} expired revoked tokens and {} user cutoffs", tokens, users);
+        }
+    }
+
+    // Synchronized with revoke so a token revoked mid-rebuild can't miss the new filter
+    private synchronized void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedTokens.size() * 2), FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+}
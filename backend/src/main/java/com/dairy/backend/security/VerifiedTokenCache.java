@@ -0,0 +1,71 @@
+package com.dairy.backend.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claims of tokens whose signature has already been checked, keyed by a
+ * SHA-256 digest of the token so raw bearer tokens are never kept in memory.
+ * An entry is only served until the token's own expiry; when the cache is
+ * full, expired entries are dropped first and everything else after that.
+ */
+class VerifiedTokenCache {
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    Claims get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.claims();
+    }
+
+    void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        // Tokens without an expiry are verified every time
+        if (maxEntries <= 0 || expiration == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(stale -> stale.expiresAt() <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(digest(token), new Entry(claims, expiration.getTime()));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,34 +1,124 @@
 package com.dairy.backend.service;
 
+import com.dairy.backend.ai.AiPriority;
+import com.dairy.backend.ai.AiResponseCache;
+import com.dairy.backend.ai.OllamaScheduler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 @Service
 public class AiChatService {
     private final OllamaChatModel chatModel;
     private final Map<String, PromptTemplate> promptTemplates;
+    // Sampling temperature per template; only temperature 0 output is deterministic enough to cache
+    private final Map<String, Double> templateTemperatures;
+    private final OllamaScheduler scheduler;
+    private final AiResponseCache responseCache;
+    // Canonical JSON for cache keys: map entries in key order regardless of how the client sent them
+    private final ObjectMapper keyMapper = new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
 
     public AiChatService(OllamaChatModel chatModel,
                          @Qualifier("customPromptTemplate") PromptTemplate defaultTemplate,
-                         @Qualifier("creativeWritingPrompt") PromptTemplate creativeTemplate) {
+                         @Qualifier("creativeWritingPrompt") PromptTemplate creativeTemplate,
+                         OllamaScheduler scheduler,
+                         AiResponseCache responseCache,
+                         @Value("${ai.templates.default.temperature:0.7}") double defaultTemperature,
+                         @Value("${ai.templates.creative.temperature:0.7}") double creativeTemperature) {
         this.chatModel = chatModel;
+        this.scheduler = scheduler;
+        this.responseCache = responseCache;
         this.promptTemplates = Map.of(
                 "default", defaultTemplate,
                 "creative", creativeTemplate
         );
+        this.templateTemperatures = Map.of(
+                "default", defaultTemperature,
+                "creative", creativeTemperature
+        );
     }
     public String generateResponse(String templateId, Map<String, Object> variables) {
         if (!promptTemplates.containsKey(templateId)) {
             throw new IllegalArgumentException("Invalid template ID");
         }
+        return call(renderPrompt(templateId, variables));
+    }
+
+    // Queues the blocking model call on OllamaScheduler as batch work; throws TooManyRequestsException when
+    // the queues are full. Deterministic templates are answered from AiResponseCache, and identical
+    // requests in flight share one call; both only within one user, since prompts may carry private notes.
+    public CompletableFuture<String> generateResponseAsync(Long userId, String templateId, Map<String, Object> variables) {
+        if (!promptTemplates.containsKey(templateId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid template ID"));
+        }
+        Prompt prompt;
+        try {
+            prompt = renderPrompt(templateId, variables);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Supplier<CompletableFuture<String>> generation = () ->
+                scheduler.submit(userId, AiPriority.BATCH, OllamaScheduler.costOf(prompt.getContents()), () -> call(prompt));
+        if (!responseCache.isEnabled() || templateTemperatures.get(templateId) > 0) {
+            responseCache.recordBypass();
+            return generation.get();
+        }
+        String key;
+        try {
+            key = cacheKey(userId, templateId, variables);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return responseCache.get(key, generation);
+    }
+
+    // Template rendered with its sampling options; rejects unknown templates
+    public Prompt renderPrompt(String templateId, Map<String, Object> variables) {
+        if (!promptTemplates.containsKey(templateId)) {
+            throw new IllegalArgumentException("Invalid template ID");
+        }
+        Prompt rendered = promptTemplates.get(templateId).create(variables);
+        return new Prompt(rendered.getInstructions(), OllamaOptions.builder()
+                .temperature(templateTemperatures.get(templateId))
+                .build());
+    }
 
-        Prompt prompt = promptTemplates.get(templateId).create(variables);
+    private String call(Prompt prompt) {
         return chatModel.call(prompt).getResult().getOutput().getText();
     }
 
+    // SHA-256 over user, template, model, options and the variables in canonical order
+    private String cacheKey(Long userId, String templateId, Map<String, Object> variables) {
+        Map<String, Object> identity = new LinkedHashMap<>();
+        identity.put("user", userId);
+        identity.put("template", templateId);
+        identity.put("model", chatModel.getDefaultOptions().getModel());
+        identity.put("temperature", templateTemperatures.get(templateId));
+        identity.put("variables", variables);
+        try {
+            byte[] canonical = keyMapper.writeValueAsString(identity).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Variables can't be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
 
 }
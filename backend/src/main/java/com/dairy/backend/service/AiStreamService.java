@@ -0,0 +1,287 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.ai.AiPriority;
+import com.dairy.backend.ai.AiTimer;
+import com.dairy.backend.ai.OllamaScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server-Sent Events variant of template generation. Tokens are forwarded as
+ * "token" events as soon as Ollama produces them, so the first bytes arrive
+ * after the first token instead of after the whole completion, and no request
+ * thread is held meanwhile.
+ *
+ * Events: "queued" (position while waiting for an Ollama slot), "token",
+ * "heartbeat" (keeps proxies from closing an idle stream), "usage" (last
+ * event of a successful stream) and "error". A client disconnect, timeout or
+ * failed write cancels the upstream generation and frees its slot.
+ *
+ * Producers (Reactor, the scheduler, the heartbeat timer) only enqueue;
+ * events are written by a drain task on aiStreamSendExecutor, as
+ * SessionOutbound does for WebSocket frames.
+ */
+@Service
+public class AiStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(AiStreamService.class);
+
+    @Autowired
+    private AiChatService chatService;
+
+    @Autowired
+    private OllamaChatModel chatModel;
+
+    @Autowired
+    private OllamaScheduler scheduler;
+
+    @Autowired
+    private AiTimer timer;
+
+    @Autowired
+    @Qualifier("aiStreamSendExecutor")
+    private Executor sendExecutor;
+
+    @Value("${ai.stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    @Value("${ai.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    // Throws IllegalArgumentException for an unknown template and TooManyRequestsException when the queues are full
+    public SseEmitter stream(Long userId, String templateId, Map<String, Object> variables) {
+        Prompt prompt = chatService.renderPrompt(templateId, variables);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Session session = new Session(emitter, sendExecutor);
+
+        CompletableFuture<OllamaScheduler.Permit> admission = scheduler.acquire(userId, AiPriority.INTERACTIVE,
+                OllamaScheduler.costOf(prompt.getContents()),
+                position -> session.send("queued", Map.of("position", position)));
+        session.admission = admission;
+        session.heartbeat = timer.scheduleAtFixedRate(
+                () -> session.heartbeat(Map.of("timestamp", System.currentTimeMillis())),
+                Duration.ofMillis(heartbeatMs));
+
+        emitter.onCompletion(session::close);
+        emitter.onTimeout(session::close);
+        emitter.onError(error -> session.close());
+
+        admission.thenAccept(permit -> {
+            if (session.closed.get()) {
+                permit.release();
+                return;
+            }
+            long started = System.currentTimeMillis();
+            AtomicReference<Usage> usage = new AtomicReference<>();
+            AtomicInteger tokens = new AtomicInteger();
+            Disposable upstream = chatModel.stream(prompt)
+                    .doFinally(signal -> permit.release())
+                    .subscribe(
+                            chunk -> {
+                                String text = textOf(chunk);
+                                if (chunk.getMetadata() != null && chunk.getMetadata().getUsage() != null) {
+                                    usage.set(chunk.getMetadata().getUsage());
+                                }
+                                if (text != null && !text.isEmpty()) {
+                                    tokens.incrementAndGet();
+                                    session.send("token", Map.of("text", text));
+                                }
+                            },
+                            error -> {
+                                logger.warn("SSE generation failed for user {}: {}", userId, error.getMessage());
+                                session.send("error", Map.of("message", String.valueOf(error.getMessage())));
+                                session.complete();
+                            },
+                            () -> {
+                                session.send("usage", usageEvent(usage.get(), tokens.get(),
+                                        System.currentTimeMillis() - started));
+                                session.complete();
+                            });
+            session.attach(upstream);
+        });
+        return emitter;
+    }
+
+    private static String textOf(ChatResponse chunk) {
+        if (chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+            return null;
+        }
+        return chunk.getResult().getOutput().getText();
+    }
+
+    private static Map<String, Object> usageEvent(Usage usage, int chunks, long durationMs) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        if (usage != null) {
+            event.put("promptTokens", usage.getPromptTokens());
+            event.put("completionTokens", usage.getCompletionTokens());
+            event.put("totalTokens", usage.getTotalTokens());
+        }
+        event.put("chunks", chunks);
+        event.put("durationMs", durationMs);
+        return event;
+    }
+
+    // Per-request state; close() is idempotent and tears down everything attached so far
+    private static final class Session {
+        // Events a drain task writes before handing its thread to other streams
+        private static final int DRAIN_BATCH = 16;
+
+        final SseEmitter emitter;
+        final Executor sendExecutor;
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile CompletableFuture<OllamaScheduler.Permit> admission;
+        volatile ScheduledFuture<?> heartbeat;
+        private volatile Disposable upstream;
+
+        // Bounded by the completion length; a stuck client is cut off by the emitter timeout
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean completing;
+
+        Session(SseEmitter emitter, Executor sendExecutor) {
+            this.emitter = emitter;
+            this.sendExecutor = sendExecutor;
+        }
+
+        void send(String name, Object data) {
+            enqueue(SseEmitter.event().name(name).data(data), false);
+        }
+
+        // Only when nothing is pending: a stream that is already sending doesn't need keep-alives
+        void heartbeat(Object data) {
+            enqueue(SseEmitter.event().name("heartbeat").data(data), true);
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event, boolean onlyIfIdle) {
+            lock.lock();
+            try {
+                if (closed.get() || completing || (onlyIfIdle && draining)) {
+                    return;
+                }
+                queue.addLast(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            sendExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            for (int batch = 0; batch < DRAIN_BATCH; batch++) {
+                SseEmitter.SseEventBuilder event;
+                boolean finish = false;
+                lock.lock();
+                try {
+                    event = closed.get() ? null : queue.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        finish = completing;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (event == null) {
+                    if (finish) {
+                        finishNow();
+                    }
+                    return;
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away
+                    close();
+                    return;
+                }
+            }
+            // More to send: go to the back of the executor queue so other streams get a turn
+            sendExecutor.execute(this::drain);
+        }
+
+        void attach(Disposable stream) {
+            upstream = stream;
+            if (closed.get()) {
+                stream.dispose();
+            }
+        }
+
+        // Completes the response once everything queued before it has been written
+        void complete() {
+            lock.lock();
+            try {
+                if (closed.get() || completing) {
+                    return;
+                }
+                completing = true;
+                if (draining) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            finishNow();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                clearQueue();
+                cancelAll();
+            }
+        }
+
+        private void finishNow() {
+            if (closed.compareAndSet(false, true)) {
+                cancelAll();
+                emitter.complete();
+            }
+        }
+
+        private void clearQueue() {
+            lock.lock();
+            try {
+                queue.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cancelAll() {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            if (admission != null) {
+                admission.cancel(false);
+            }
+            if (upstream != null) {
+                upstream.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.cache.BoundedCache;
+import com.dairy.backend.dto.NoteResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Read-through cache for NoteService reads, bounded by the estimated heap
+ * size of the cached notes rather than by entry count (see BoundedCache).
+ * Eviction is LRU across all users plus a TTL; writes invalidate everything
+ * cached for the affected user.
+ *
+ * A per-user generation guards against a slow loader re-inserting data that
+ * was invalidated while it was reading from the database. It is only kept
+ * while that user has loads in flight, so the map never outgrows the number
+ * of concurrent reads.
+ */
+@Component
+public class NoteCache {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 64;
+
+    enum Kind { NOTE_LIST, NOTE }
+
+    private record Key(Long userId, Kind kind, Long noteId) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+    }
+
+    @Value("${notes.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${notes.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Guards the user bookkeeping; entries themselves are only touched with it held as well
+    private final ReentrantLock lock = new ReentrantLock();
+    private BoundedCache<Key, Object> entries;
+    private final Map<Long, Set<Key>> keysByUser = new HashMap<>();
+    private final Map<Long, Long> generations = new HashMap<>();
+    private final Map<Long, Integer> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        entries = new BoundedCache<>(maxBytes, Duration.ofSeconds(ttlSeconds), this::forgetKey);
+    }
+
+    public List<NoteResponse> getNotes(Long userId, Supplier<List<NoteResponse>> loader) {
+        return lookup(new Key(userId, Kind.NOTE_LIST, null),
+                () -> List.copyOf(loader.get()),
+                notes -> notes.stream().mapToLong(NoteCache::sizeOf).sum());
+    }
+
+    public Optional<NoteResponse> getNote(Long userId, Long noteId, Supplier<Optional<NoteResponse>> loader) {
+        // Missing notes are not cached, so an empty result always goes to the loader
+        return Optional.ofNullable(lookup(new Key(userId, Kind.NOTE, noteId),
+                () -> loader.get().orElse(null),
+                NoteCache::sizeOf));
+    }
+
+    public void invalidateUser(Long userId) {
+        lock.lock();
+        try {
+            // Only a load already in flight can re-insert stale data
+            if (loading.containsKey(userId)) {
+                generations.merge(userId, 1L, Long::sum);
+            }
+            Set<Key> keys = keysByUser.remove(userId);
+            if (keys != null) {
+                keys.forEach(entries::remove);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            BoundedCache.Stats stats = entries.stats();
+            return new Stats(hits.sum(), misses.sum(), stats.evictions(), stats.entries(), stats.bytes(), stats.maxBytes());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(Key key, Supplier<T> loader, ToLongFunction<T> sizer) {
+        long generation;
+        lock.lock();
+        try {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return (T) cached;
+            }
+            generation = generations.getOrDefault(key.userId(), 0L);
+            loading.merge(key.userId(), 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        T value = null;
+        long bytes = 0;
+        try {
+            value = loader.get();
+            if (value != null) {
+                bytes = ENTRY_OVERHEAD_BYTES + sizer.applyAsLong(value);
+            }
+        } finally {
+            lock.lock();
+            try {
+                if (value != null && generations.getOrDefault(key.userId(), 0L) == generation
+                        && entries.put(key, value, bytes)) {
+                    keysByUser.computeIfAbsent(key.userId(), id -> new HashSet<>()).add(key);
+                }
+                finishLoad(key.userId());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return value;
+    }
+
+    // The last load for a user drops its generation; no reader still holds an older one
+    private void finishLoad(Long userId) {
+        if (loading.merge(userId, -1, Integer::sum) == 0) {
+            loading.remove(userId);
+            generations.remove(userId);
+        }
+    }
+
+    int trackedUsers() {
+        lock.lock();
+        try {
+            return generations.size() + loading.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Evicted or expired entries; called by the cache with our lock already held
+    private void forgetKey(Key key) {
+        Set<Key> keys = keysByUser.get(key.userId());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByUser.remove(key.userId());
+            }
+        }
+    }
+
+    // Rough heap footprint: two bytes per char plus fixed object overhead
+    private static long sizeOf(NoteResponse note) {
+        long chars = (note.getTitle() == null ? 0 : note.getTitle().length())
+                + (note.getContent() == null ? 0 : note.getContent().length());
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+}
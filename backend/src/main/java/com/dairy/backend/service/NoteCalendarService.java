@@ -0,0 +1,98 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.calendar.UserDateIndex;
+import com.dairy.backend.dto.CalendarDay;
+import com.dairy.backend.dto.NoteDateEntry;
+import com.dairy.backend.dto.NoteSummary;
+import com.dairy.backend.repository.NoteRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Calendar views over a user's diary: entry and word counts per day, and
+ * "on this day" in earlier years. Each user's date index is built lazily from
+ * a createdAt/word-count projection (never content) and kept current by
+ * NoteService writes once they commit. At most notes.calendar.max-users
+ * indexes stay in memory (see UserIndexes).
+ */
+@Service
+public class NoteCalendarService {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${notes.calendar.max-users:1000}")
+    private int maxUsers;
+
+    private UserIndexes<UserDateIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = new UserIndexes<>(this::build, maxUsers);
+    }
+
+    // Whole year when month is null
+    public List<CalendarDay> heatmap(Long userId, int year, Integer month) {
+        if (year < 1 || year > 9999) {
+            throw new IllegalArgumentException("Invalid year: " + year);
+        }
+        if (month != null && (month < 1 || month > 12)) {
+            throw new IllegalArgumentException("Invalid month: " + month);
+        }
+        LocalDate from = LocalDate.of(year, month == null ? 1 : month, 1);
+        LocalDate to = month == null ? from.plusYears(1).minusDays(1) : from.plusMonths(1).minusDays(1);
+        return indexFor(userId).range(from, to);
+    }
+
+    public List<NoteSummary> onThisDay(Long userId, LocalDate date) {
+        List<Long> ids = indexFor(userId).sameDayInEarlierYears(date);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return noteRepository.findSummariesByUserIdAndIdIn(userId, ids);
+    }
+
+    // Called from NoteService; applied only once the write commits
+    public void noteCreated(Long userId, Long noteId, LocalDateTime createdAt, Integer wordCount) {
+        TransactionHooks.afterCommit(() ->
+                indexes.update(userId, index -> index.put(noteId, createdAt.toLocalDate(), wordsOf(wordCount))));
+    }
+
+    public void noteEdited(Long userId, Long noteId, Integer wordCount) {
+        TransactionHooks.afterCommit(() ->
+                indexes.update(userId, index -> index.updateWords(noteId, wordsOf(wordCount))));
+    }
+
+    public void noteRemoved(Long userId, Long noteId) {
+        TransactionHooks.afterCommit(() -> indexes.update(userId, index -> index.remove(noteId)));
+    }
+
+    // After a bulk backfill of word counts; indexes rebuild on next use
+    public void invalidateAll() {
+        indexes.clear();
+    }
+
+    private UserDateIndex indexFor(Long userId) {
+        return indexes.get(userId);
+    }
+
+    private UserDateIndex build(Long userId) {
+        UserDateIndex index = new UserDateIndex();
+        for (NoteDateEntry entry : noteRepository.findDateEntriesByUserId(userId)) {
+            if (entry.createdAt() != null) {
+                index.put(entry.id(), entry.createdAt().toLocalDate(), wordsOf(entry.wordCount()));
+            }
+        }
+        return index;
+    }
+
+    private static int wordsOf(Integer wordCount) {
+        return wordCount == null ? 0 : wordCount;
+    }
+}
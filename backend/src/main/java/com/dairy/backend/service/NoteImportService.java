@@ -0,0 +1,219 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteImportEvent;
+import com.dairy.backend.dto.NoteRequest;
+import com.dairy.backend.exception.UserNotFoundException;
+import com.dairy.backend.model.Notes;
+import com.dairy.backend.model.User;
+import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.tags.TagNames;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams NDJSON note records into the database in chunked transactions.
+ * The user is resolved once per import and each chunk is written as JDBC
+ * batches (sequence ids, hibernate.jdbc.batch_size), then the persistence
+ * context is cleared so memory stays flat regardless of import size. If a
+ * chunk fails, its records are retried one per transaction so a single bad
+ * record (or the one that reaches the quota) is reported on its own line.
+ */
+@Service
+public class NoteImportService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteImportService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteSearchService noteSearchService;
+
+    @Autowired
+    private NoteCache noteCache;
+
+    @Autowired
+    private UserNoteStatsService noteStatsService;
+
+    @Autowired
+    private NoteCalendarService noteCalendarService;
+
+    @Autowired
+    private NoteTagService noteTagService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notes.import.chunk-size:500}")
+    private int chunkSize;
+
+    public NoteImportEvent importNotes(Long userId, BufferedReader reader, Consumer<NoteImportEvent> listener)
+            throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User not found");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long processed = 0;
+        long imported = 0;
+        long failed = 0;
+        List<PendingNote> chunk = new ArrayList<>(chunkSize);
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            processed++;
+            String error = null;
+            try {
+                NoteRequest request = objectMapper.readValue(line, NoteRequest.class);
+                error = validate(request);
+                if (error == null) {
+                    chunk.add(new PendingNote(lineNumber, request));
+                }
+            } catch (JsonProcessingException e) {
+                error = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (error != null) {
+                failed++;
+                listener.accept(NoteImportEvent.builder().type("error").line(lineNumber).message(error).build());
+            }
+
+            if (chunk.size() >= chunkSize) {
+                int written = writeChunk(transaction, userId, chunk, listener);
+                imported += written;
+                failed += chunk.size() - written;
+                chunk.clear();
+                listener.accept(progress("progress", processed, imported, failed));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            int written = writeChunk(transaction, userId, chunk, listener);
+            imported += written;
+            failed += chunk.size() - written;
+        }
+
+        logger.info("Imported {} notes for user {} ({} failed)", imported, userId, failed);
+        return progress("complete", processed, imported, failed);
+    }
+
+    private int writeChunk(TransactionTemplate transaction, Long userId, List<PendingNote> chunk,
+                           Consumer<NoteImportEvent> listener) {
+        try {
+            write(transaction, userId, chunk);
+            return chunk.size();
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                reportFailure(userId, chunk.get(0), e, listener);
+                return 0;
+            }
+            logger.warn("Import chunk failed for user {}, retrying record by record: {}", userId, e.getMessage());
+        }
+        int written = 0;
+        for (PendingNote pending : chunk) {
+            try {
+                write(transaction, userId, List.of(pending));
+                written++;
+            } catch (RuntimeException e) {
+                reportFailure(userId, pending, e, listener);
+            }
+        }
+        return written;
+    }
+
+    private void write(TransactionTemplate transaction, Long userId, List<PendingNote> chunk) {
+        transaction.executeWithoutResult(status -> {
+            User user = entityManager.getReference(User.class, userId);
+            long contentBytes = 0;
+            List<Notes> written = new ArrayList<>(chunk.size());
+            for (PendingNote pending : chunk) {
+                Notes note = new Notes();
+                note.setTitle(pending.request().getTitle());
+                note.setContent(pending.request().getContent());
+                note.setUser(user);
+                note.setTags(TagNames.normalize(pending.request().getTags()));
+                entityManager.persist(note);
+                contentBytes += note.getContentBytes();
+                written.add(note);
+            }
+            entityManager.flush();
+            // Rejects the whole chunk if it would take the user over quota
+            noteStatsService.applyDelta(userId, chunk.size(), contentBytes);
+            // Timestamps are only assigned when the insert is flushed
+            for (Notes note : written) {
+                noteCalendarService.noteCreated(userId, note.getId(), note.getCreatedAt(), note.getWordCount());
+                noteTagService.noteWritten(userId, note.getId(), note.getUpdatedAt(), note.getTags());
+                noteSearchService.indexNote(userId, note.getId(), note.getUpdatedAt(), note.getTitle(), note.getContent());
+            }
+            entityManager.clear();
+        });
+        noteCache.invalidateUser(userId);
+    }
+
+    private void reportFailure(Long userId, PendingNote pending, RuntimeException e,
+                               Consumer<NoteImportEvent> listener) {
+        logger.debug("Import record on line {} failed for user {}: {}", pending.line(), userId, e.getMessage());
+        listener.accept(NoteImportEvent.builder()
+                .type("error")
+                .line(pending.line())
+                .message("Could not be saved: " + e.getMessage())
+                .build());
+    }
+
+    private String validate(NoteRequest request) {
+        Set<ConstraintViolation<NoteRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            try {
+                TagNames.normalize(request.getTags());
+                return null;
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static NoteImportEvent progress(String type, long processed, long imported, long failed) {
+        return NoteImportEvent.builder()
+                .type(type)
+                .processed(processed)
+                .imported(imported)
+                .failed(failed)
+                .build();
+    }
+
+    private record PendingNote(int line, NoteRequest request) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteRevisionResponse;
+import com.dairy.backend.dto.NoteRevisionSummary;
+import com.dairy.backend.dto.TextEdit;
+import com.dairy.backend.history.TextDeltas;
+import com.dairy.backend.model.NoteRevision;
+import com.dairy.backend.model.RevisionKind;
+import com.dairy.backend.repository.NoteRevisionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Revision history for notes. Every update stores only the edits against the
+ * previous revision; every {@code notes.history.snapshot-interval} revisions a
+ * full snapshot is stored instead, so rebuilding any revision replays at most
+ * that many deltas.
+ *
+ * Nothing is written on create: the first update stores the original text as
+ * revision 0 next to the first delta, which also covers notes that existed
+ * (or were imported) before they were ever edited. Likewise, an update whose
+ * previous revision was never recorded (notes.history.enabled was off for a
+ * while) stores that revision as a snapshot first, so every listed revision
+ * can be rebuilt.
+ */
+@Service
+public class NoteRevisionService {
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Value("${notes.history.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    public void recordUpdate(Long noteId, Long userId, long newRevision,
+                             String oldTitle, String oldContent, String newTitle, String newContent) {
+        recordEdits(noteId, userId, newRevision, oldTitle, oldContent, newTitle, newContent,
+                TextDeltas.diff(oldContent, newContent));
+    }
+
+    // Used when the edits are already known (PATCH), so nothing has to be diffed
+    public void recordEdits(Long noteId, Long userId, long newRevision,
+                            String oldTitle, String oldContent, String newTitle, String newContent,
+                            List<TextEdit> edits) {
+        long previous = newRevision - 1;
+        if (newRevision == 1 || !revisionRepository.existsByNoteIdAndRevision(noteId, previous)) {
+            revisionRepository.save(new NoteRevision(noteId, userId, previous, RevisionKind.SNAPSHOT, oldTitle, oldContent));
+        }
+        if (newRevision % snapshotInterval == 0) {
+            revisionRepository.save(new NoteRevision(noteId, userId, newRevision, RevisionKind.SNAPSHOT, newTitle, newContent));
+        } else {
+            revisionRepository.save(new NoteRevision(noteId, userId, newRevision, RevisionKind.DELTA, newTitle,
+                    TextDeltas.encode(edits)));
+        }
+    }
+
+    public void deleteHistory(Long noteId, Long userId) {
+        revisionRepository.deleteByNote(noteId, userId);
+    }
+
+    public List<NoteRevisionSummary> listRevisions(Long noteId, Long userId) {
+        return revisionRepository.findSummaries(noteId, userId);
+    }
+
+    public Optional<NoteRevisionResponse> getRevision(Long noteId, Long userId, Long revision) {
+        Optional<NoteRevision> snapshot = revisionRepository
+                .findFirstByNoteIdAndUserIdAndKindAndRevisionLessThanEqualOrderByRevisionDesc(
+                        noteId, userId, RevisionKind.SNAPSHOT, revision);
+        if (snapshot.isEmpty()) {
+            return Optional.empty();
+        }
+
+        NoteRevision base = snapshot.get();
+        String content = base.getPayload();
+        NoteRevision last = base;
+        if (base.getRevision() < revision) {
+            List<NoteRevision> deltas = revisionRepository
+                    .findByNoteIdAndRevisionBetweenOrderByRevisionAsc(noteId, base.getRevision() + 1, revision);
+            long expected = base.getRevision() + 1;
+            for (NoteRevision delta : deltas) {
+                if (delta.getRevision() != expected) {
+                    if (deltas.get(deltas.size() - 1).getRevision().longValue() != revision) {
+                        // The requested revision itself was never recorded
+                        return Optional.empty();
+                    }
+                    // Only history written before gaps were back-filled with snapshots can get here
+                    throw new IllegalStateException("Revision " + revision + " of note " + noteId
+                            + " can't be rebuilt: revision " + expected + " was never recorded");
+                }
+                content = TextDeltas.apply(content, TextDeltas.decode(delta.getPayload()));
+                last = delta;
+                expected++;
+            }
+            if (last.getRevision().longValue() != revision) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new NoteRevisionResponse(noteId, revision, last.getTitle(), content, last.getCreatedAt()));
+    }
+}
@@ -0,0 +1,187 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteListStamp;
+import com.dairy.backend.dto.NoteSearchResult;
+import com.dairy.backend.model.Notes;
+import com.dairy.backend.repository.NoteRepository;
+import com.dairy.backend.search.SearchHit;
+import com.dairy.backend.search.SnippetBuilder;
+import com.dairy.backend.search.Tokenizer;
+import com.dairy.backend.search.UserSearchIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over note titles and content.
+ * Each user's index is loaded lazily (from disk when the saved copy is still
+ * current, otherwise rebuilt from the database), kept up to date by NoteService
+ * writes and flushed back to disk in the background. At most
+ * search.index.max-users indexes stay in memory (see UserIndexes).
+ */
+@Service
+public class NoteSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchService.class);
+
+    private static final int FILE_MAGIC = 0x4E534958;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int SNIPPET_LENGTH = 200;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${search.index.dir:./data/search-index}")
+    private String indexDir;
+
+    @Value("${search.index.max-users:1000}")
+    private int maxUsers;
+
+    private UserIndexes<UserSearchIndex> indexes;
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        indexes = new UserIndexes<>(this::loadOrBuild, maxUsers);
+    }
+
+    public List<NoteSearchResult> search(Long userId, String query, int limit) {
+        return search(userId, query, limit, null);
+    }
+
+    // restrictTo limits results to those note ids (tag filters); null means no restriction
+    public List<NoteSearchResult> search(Long userId, String query, int limit, Set<Long> restrictTo) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        List<SearchHit> hits = restrictTo == null
+                ? indexes.get(userId).search(terms, limit)
+                : indexes.get(userId).search(terms, limit, restrictTo::contains);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = hits.stream().map(SearchHit::noteId).collect(Collectors.toList());
+        Map<Long, Notes> notes = noteRepository.findByUserIdAndIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(Notes::getId, Function.identity()));
+
+        List<NoteSearchResult> results = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            Notes note = notes.get(hit.noteId());
+            if (note != null) {
+                results.add(new NoteSearchResult(
+                        note.getId(),
+                        note.getTitle(),
+                        SnippetBuilder.build(note.getContent(), terms, SNIPPET_LENGTH),
+                        hit.score(),
+                        note.getUpdatedAt()));
+            }
+        }
+        return results;
+    }
+
+    // Called from NoteService after a note is created or changed; updatedAt is the note's new updated_at
+    public void indexNote(Long userId, Long noteId, LocalDateTime updatedAt, String title, String content) {
+        Map<String, Integer> terms = Tokenizer.termFrequencies(title, TITLE_WEIGHT, content);
+        TransactionHooks.afterCommit(() -> indexes.update(userId, index -> {
+            index.put(noteId, updatedAt, terms);
+            dirtyUsers.add(userId);
+        }));
+    }
+
+    public void removeNote(Long userId, Long noteId) {
+        TransactionHooks.afterCommit(() -> indexes.update(userId, index -> {
+            index.remove(noteId);
+            dirtyUsers.add(userId);
+        }));
+    }
+
+    private UserSearchIndex loadOrBuild(Long userId) {
+        UserSearchIndex.Stamp stamp = currentStamp(userId);
+        Path file = indexFile(userId);
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() == FILE_MAGIC && UserSearchIndex.readStamp(in).equals(stamp)) {
+                    return UserSearchIndex.readFrom(in);
+                }
+                logger.info("Search index for user {} is stale, rebuilding", userId);
+            } catch (IOException e) {
+                logger.warn("Could not read search index for user {}: {}", userId, e.getMessage());
+            }
+        }
+
+        UserSearchIndex index = new UserSearchIndex();
+        for (Notes note : noteRepository.findByUserIdOrderByUpdatedAtDesc(userId)) {
+            index.put(note.getId(), note.getUpdatedAt(),
+                    Tokenizer.termFrequencies(note.getTitle(), TITLE_WEIGHT, note.getContent()));
+        }
+        dirtyUsers.add(userId);
+        return index;
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.flush-interval-ms:60000}")
+    public void flushDirtyIndexes() {
+        for (Long userId : List.copyOf(dirtyUsers)) {
+            dirtyUsers.remove(userId);
+            UserSearchIndex index = indexes.peek(userId);
+            if (index != null) {
+                write(userId, index);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirtyIndexes();
+    }
+
+    // The index writes its own stamp with the snapshot, so the file never claims changes it doesn't contain
+    private void write(Long userId, UserSearchIndex index) {
+        Path file = indexFile(userId);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                index.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not persist search index for user {}: {}", userId, e.getMessage());
+            dirtyUsers.add(userId);
+        }
+    }
+
+    private Path indexFile(Long userId) {
+        return Paths.get(indexDir, "user-" + userId + ".idx");
+    }
+
+    private UserSearchIndex.Stamp currentStamp(Long userId) {
+        NoteListStamp stamp = noteRepository.findListStampByUserId(userId);
+        return UserSearchIndex.Stamp.of(stamp.noteCount(), stamp.latestUpdate());
+    }
+}
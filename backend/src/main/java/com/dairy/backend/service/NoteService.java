@@ -1,16 +1,34 @@
 package com.dairy.backend.service;
 
+import com.dairy.backend.dto.CalendarDay;
+import com.dairy.backend.dto.CursorPage;
+import com.dairy.backend.dto.NoteCursor;
+import com.dairy.backend.dto.NoteFieldSet;
+import com.dairy.backend.dto.NoteListStamp;
+import com.dairy.backend.dto.NotePatchRequest;
+import com.dairy.backend.dto.NotePatchResponse;
 import com.dairy.backend.dto.NoteRequest;
 import com.dairy.backend.dto.NoteResponse;
+import com.dairy.backend.dto.NoteRevisionResponse;
+import com.dairy.backend.dto.NoteRevisionSummary;
+import com.dairy.backend.dto.NoteSearchResult;
+import com.dairy.backend.dto.NoteSummary;
 import com.dairy.backend.dto.NoteUpdateRequest;
+import com.dairy.backend.dto.NoteWriteState;
+import com.dairy.backend.dto.TagFilter;
+import com.dairy.backend.exception.NoteConflictException;
 import com.dairy.backend.exception.ResourceNotFoundException;
 import com.dairy.backend.exception.UserNotFoundException;
+import com.dairy.backend.history.TextDeltas;
+import com.dairy.backend.model.CompressedTextConverter;
 import com.dairy.backend.model.Notes;
 import com.dairy.backend.model.User;
 import com.dairy.backend.repository.NoteRepository;
 
 import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.tags.TagNames;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,30 +37,171 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class NoteService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private NoteRepository noteRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private NoteSearchService noteSearchService;
+    @Autowired
+    private NoteCache noteCache;
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+    @Autowired
+    private UserNoteStatsService noteStatsService;
+    @Autowired
+    private NoteCalendarService noteCalendarService;
+    @Autowired
+    private NoteTagService noteTagService;
+    @Autowired
+    private CompressedTextConverter storedText;
+
+    @Value("${notes.history.enabled:true}")
+    private boolean historyEnabled;
     // Create a new note
+    @Transactional(readOnly = true)
     public List<NoteResponse> getAllNotesByUser(Long userId) {
-        return noteRepository.findByUserIdOrderByUpdatedAtDesc(userId)
+        return noteCache.getNotes(userId, () -> noteRepository.findByUserIdOrderByUpdatedAtDesc(userId)
                 .stream()
                 .map(NoteResponse::new)
+                .collect(Collectors.toList()));
+
+    }
+
+    // Tag filters are evaluated on the bitmap index, then the (cached) full list is narrowed to the matches
+    @Transactional(readOnly = true)
+    public List<NoteResponse> getAllNotesByUser(Long userId, TagFilter tags) {
+        List<NoteResponse> notes = getAllNotesByUser(userId);
+        if (tags.isEmpty()) {
+            return notes;
+        }
+        Set<Long> matches = noteTagService.matchingIds(userId, tags);
+        return notes.stream()
+                .filter(note -> matches.contains(note.getId()))
+                .collect(Collectors.toList());
+    }
+
+    // Sparse fieldset over all of a user's notes; the content column is only read when asked for
+    public List<Map<String, Object>> getNoteFieldsByUser(Long userId, NoteFieldSet fields, TagFilter tags) {
+        Set<Long> matches = tags.isEmpty() ? null : noteTagService.matchingIds(userId, tags);
+        if (fields.needsContent()) {
+            return noteRepository.findByUserIdOrderByUpdatedAtDesc(userId).stream()
+                    .filter(note -> matches == null || matches.contains(note.getId()))
+                    .map(fields::select)
+                    .collect(Collectors.toList());
+        }
+        return noteRepository.findSummariesByUserId(userId).stream()
+                .filter(note -> matches == null || matches.contains(note.getId()))
+                .map(fields::select)
                 .collect(Collectors.toList());
+    }
 
+    // Keyset page of a user's notes; cost depends on the page size, not on how deep the cursor is
+    @Transactional(readOnly = true)
+    public CursorPage<NoteResponse> getNotesPage(Long userId, String cursor, int limit, TagFilter tags) {
+        int size = pageSize(limit);
+        List<Notes> rows = tags.isEmpty() ? fetchPage(userId, cursor, size) : fetchTaggedPage(userId, cursor, size, tags);
+        return toPage(rows, size, note -> new NoteCursor(note.getUpdatedAt(), note.getId()), NoteResponse::new);
+    }
+
+    public CursorPage<Map<String, Object>> getNoteFieldsPage(Long userId, String cursor, int limit,
+                                                             NoteFieldSet fields, TagFilter tags) {
+        int size = pageSize(limit);
+        if (fields.needsContent()) {
+            List<Notes> rows = tags.isEmpty() ? fetchPage(userId, cursor, size) : fetchTaggedPage(userId, cursor, size, tags);
+            return toPage(rows, size, note -> new NoteCursor(note.getUpdatedAt(), note.getId()), fields::select);
+        }
+        if (!tags.isEmpty()) {
+            List<Long> ids = noteTagService.page(userId, tags, decodeCursor(cursor), size + 1);
+            List<NoteSummary> rows = ids.isEmpty() ? List.of()
+                    : inOrder(ids, noteRepository.findSummariesByUserIdAndIdIn(userId, ids), NoteSummary::getId);
+            return toPage(rows, size, note -> new NoteCursor(note.getUpdatedAt(), note.getId()), fields::select);
+        }
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<NoteSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = noteRepository.findSummaryPage(userId, pageable);
+        } else {
+            NoteCursor position = NoteCursor.decode(cursor);
+            rows = noteRepository.findSummaryPageAfter(userId, position.updatedAt(), position.id(), pageable);
+        }
+        return toPage(rows, size, note -> new NoteCursor(note.getUpdatedAt(), note.getId()), fields::select);
+    }
+
+    private List<Notes> fetchPage(Long userId, String cursor, int size) {
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, size + 1);
+        if (cursor == null || cursor.isBlank()) {
+            return noteRepository.findByUserIdOrderByUpdatedAtDescIdDesc(userId, pageable);
+        }
+        NoteCursor position = NoteCursor.decode(cursor);
+        return noteRepository.findPageAfter(userId, position.updatedAt(), position.id(), pageable);
+    }
+
+    // The tag index picks and orders the page's ids; the database only loads those rows
+    private List<Notes> fetchTaggedPage(Long userId, String cursor, int size, TagFilter tags) {
+        List<Long> ids = noteTagService.page(userId, tags, decodeCursor(cursor), size + 1);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return inOrder(ids, noteRepository.findByUserIdAndIdIn(userId, ids), Notes::getId);
+    }
+
+    private static NoteCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : NoteCursor.decode(cursor);
+    }
+
+    private static <R> List<R> inOrder(List<Long> ids, List<R> rows, Function<R, Long> id) {
+        Map<Long, R> byId = rows.stream().collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // updated_at is TIMESTAMP(6); the tag and search indexes and the response must see the value the row stores
+    static LocalDateTime writeTime() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private static <R, T> CursorPage<T> toPage(List<R> rows, int size,
+                                               Function<R, NoteCursor> position,
+                                               Function<R, T> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<R> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? position.apply(page.get(page.size() - 1)).encode() : null;
+        List<T> items = page.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor, hasMore);
     }
 
+    @Transactional(readOnly = true)
     public Optional<NoteResponse> getNoteById(Long noteId, Long userId) {
-        return noteRepository.findByIdAndUserId(noteId, userId)
-                .map(NoteResponse::new);
+        return noteCache.getNote(userId, noteId, () -> noteRepository.findByIdAndUserId(noteId, userId)
+                .map(NoteResponse::new));
     }
 
     @Transactional
@@ -54,40 +213,197 @@ public class NoteService {
         note.setTitle(request.getTitle());
         note.setContent(request.getContent());
         note.setUser(user);
-        Notes savedNote = noteRepository.save(note);
+        note.setTags(TagNames.normalize(request.getTags()));
+        // Flush so generated timestamps and version are populated in the response
+        Notes savedNote = noteRepository.saveAndFlush(note);
+        noteStatsService.applyDelta(userId, 1, savedNote.getContentBytes());
+        noteCalendarService.noteCreated(userId, savedNote.getId(), savedNote.getCreatedAt(), savedNote.getWordCount());
+        noteTagService.noteWritten(userId, savedNote.getId(), savedNote.getUpdatedAt(), savedNote.getTags());
+        noteSearchService.indexNote(userId, savedNote.getId(), savedNote.getUpdatedAt(),
+                savedNote.getTitle(), savedNote.getContent());
+        invalidateCache(userId);
         return new NoteResponse(savedNote);
     }
     @Transactional
     public Optional<NoteResponse> updateNote(Long noteId, NoteRequest request, Long userId) {
-        Optional<Notes> noteOpt = noteRepository.findByIdAndUserId(noteId, userId);
-        if (noteOpt.isPresent()) {
-            Notes note = noteOpt.get();
-            note.setTitle(request.getTitle());
-            note.setContent(request.getContent());
-            Notes updatedNote = noteRepository.save(note);
-            return Optional.of(new NoteResponse(updatedNote));
+        return updateNote(noteId, request, userId, request.getVersion());
+    }
+
+    // One ownership-checked UPDATE, conditioned on expectedVersion when given, that also hands back the row it
+    // replaced: the old size gives the exact stats delta and the old version the new one, without reading the note
+    // first. The previous title and content are only returned when revision history needs them.
+    @Transactional
+    public Optional<NoteResponse> updateNote(Long noteId, NoteRequest request, Long userId, Long expectedVersion) {
+        // null leaves the note's tags as they are
+        Set<String> tags = request.getTags() == null ? null : TagNames.normalize(request.getTags());
+        long contentBytes = Notes.contentBytesOf(request.getContent());
+        int wordCount = Notes.wordCountOf(request.getContent());
+        LocalDateTime now = writeTime();
+        String stored = storedText.convertToDatabaseColumn(request.getContent());
+        String snippet = Notes.snippetOf(request.getContent());
+        Optional<NoteWriteState> replaced = historyEnabled
+                ? noteRepository.updateOwnedReturningPreviousText(noteId, userId, request.getTitle(), stored,
+                        snippet, contentBytes, wordCount, now, expectedVersion)
+                : noteRepository.updateOwnedReturningPrevious(noteId, userId, request.getTitle(), stored,
+                        snippet, contentBytes, wordCount, now, expectedVersion);
+        if (replaced.isEmpty()) {
+            // Only the failure path reads again, to tell a stale version from a missing note
+            if (noteRepository.findVersionByIdAndUserId(noteId, userId).isPresent()) {
+                throw new NoteConflictException("Note was modified by another request");
+            }
+            return Optional.empty();
+        }
+        NoteWriteState previous = replaced.get();
+        noteStatsService.applyDelta(userId, 0, contentBytes - storedBytes(previous.getContentBytes()));
+        noteCalendarService.noteEdited(userId, noteId, wordCount);
+        if (tags != null) {
+            noteRepository.deleteTags(noteId);
+            tags.forEach(tag -> noteRepository.insertTag(noteId, tag));
+        }
+        noteTagService.noteWritten(userId, noteId, now, tags);
+        long newVersion = previous.getVersion() + 1;
+        if (historyEnabled) {
+            noteRevisionService.recordUpdate(noteId, userId, newVersion, previous.getTitle(),
+                    storedText.convertToEntityAttribute(previous.getStoredContent()), request.getTitle(), request.getContent());
+        }
+        noteSearchService.indexNote(userId, noteId, now, request.getTitle(), request.getContent());
+        invalidateCache(userId);
+
+        // Full representation: createdAt comes back with the replaced row, tags are only read when not sent
+        NoteResponse response = new NoteResponse();
+        response.setId(noteId);
+        response.setTitle(request.getTitle());
+        response.setContent(request.getContent());
+        response.setCreatedAt(previous.getCreatedAt());
+        response.setUpdatedAt(now);
+        response.setVersion(newVersion);
+        response.setTags(new TreeSet<>(tags != null ? tags : noteRepository.findTagsByNoteId(noteId)));
+        return Optional.of(response);
+    }
+
+    // Applies text edits against baseVersion; the UPDATE is conditioned on that version so a
+    // concurrent writer makes this fail with a conflict instead of being silently overwritten
+    @Transactional
+    public Optional<NotePatchResponse> patchNote(Long noteId, NotePatchRequest request, Long userId) {
+        Optional<Notes> current = noteRepository.findByIdAndUserId(noteId, userId);
+        if (current.isEmpty()) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        Notes note = current.get();
+        if (!request.getBaseVersion().equals(note.getVersion())) {
+            throw new NoteConflictException("Note was modified by another request");
+        }
+
+        String title = request.getTitle() != null ? request.getTitle() : note.getTitle();
+        String content = TextDeltas.apply(note.getContent(), request.getEdits());
+        long contentBytes = Notes.contentBytesOf(content);
+        int wordCount = Notes.wordCountOf(content);
+        if (title.isBlank()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (content.isBlank()) {
+            throw new IllegalArgumentException("Content is required");
+        }
+
+        LocalDateTime now = writeTime();
+        int updated = noteRepository.updateOwned(noteId, userId, title, content,
+                Notes.snippetOf(content), contentBytes, wordCount, now, request.getBaseVersion());
+        if (updated == 0) {
+            throw new NoteConflictException("Note was modified by another request");
+        }
+        noteStatsService.applyDelta(userId, 0, contentBytes - storedBytes(note.getContentBytes()));
+        noteCalendarService.noteEdited(userId, noteId, wordCount);
+        noteTagService.noteWritten(userId, noteId, now, null);
+        long newVersion = request.getBaseVersion() + 1;
+        if (historyEnabled) {
+            noteRevisionService.recordEdits(noteId, userId, newVersion,
+                    note.getTitle(), note.getContent(), title, content, request.getEdits());
+        }
+        noteSearchService.indexNote(userId, noteId, now, title, content);
+        invalidateCache(userId);
+        return Optional.of(new NotePatchResponse(noteId, newVersion, now, content.length()));
     }
+
+    // The DELETE returns the removed row's size for the stats delta, so nothing is read beforehand
     @Transactional
     public boolean deleteNote(Long noteId, Long userId) {
-        Optional<Notes> noteOpt = noteRepository.findByIdAndUserId(noteId, userId);
-        if (noteOpt.isPresent()) {
-            noteRepository.deleteByIdAndUserId(noteId, userId);
-            return true;
+        noteRepository.deleteTagsOwned(noteId, userId);
+        Optional<NoteWriteState> removed = noteRepository.deleteOwnedReturningPrevious(noteId, userId);
+        if (removed.isEmpty()) {
+            return false;
         }
-        return false;
+        noteStatsService.applyDelta(userId, -1, -storedBytes(removed.get().getContentBytes()));
+        noteCalendarService.noteRemoved(userId, noteId);
+        noteTagService.noteRemoved(userId, noteId);
+        noteRevisionService.deleteHistory(noteId, userId);
+        noteSearchService.removeNote(userId, noteId);
+        invalidateCache(userId);
+        return true;
     }
 
-    public List<NoteResponse> searchNotes(Long userId, String title) {
+    @Transactional(readOnly = true)
+    public List<NoteResponse> searchNotes(Long userId, String title, TagFilter tags) {
+        Set<Long> matches = tags.isEmpty() ? null : noteTagService.matchingIds(userId, tags);
         return noteRepository.findByUserIdAndTitleContainingIgnoreCase(userId, title)
                 .stream()
+                .filter(note -> matches == null || matches.contains(note.getId()))
                 .map(NoteResponse::new)
                 .collect(Collectors.toList());
     }
 
+    // Ranked search over title and content backed by the per-user inverted index
+    public List<NoteSearchResult> searchFullText(Long userId, String query, int limit, TagFilter tags) {
+        Set<Long> matches = tags.isEmpty() ? null : noteTagService.matchingIds(userId, tags);
+        return noteSearchService.search(userId, query, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), matches);
+    }
+
+    // Every tag the user has, with the number of notes carrying it
+    public Map<String, Integer> getTagCounts(Long userId) {
+        return noteTagService.tagCounts(userId);
+    }
+
+    public NoteListStamp getListStamp(Long userId) {
+        return noteRepository.findListStampByUserId(userId);
+    }
+
+    public Optional<Long> getNoteVersion(Long noteId, Long userId) {
+        return noteRepository.findVersionByIdAndUserId(noteId, userId);
+    }
+
+    // Served from user_note_stats instead of a COUNT over the user's notes
     public long getNoteCountByUser(Long userId) {
-        return noteRepository.countByUserId(userId);
+        return noteStatsService.getNoteCount(userId);
+    }
+
+    public List<CalendarDay> getCalendar(Long userId, int year, Integer month) {
+        return noteCalendarService.heatmap(userId, year, month);
+    }
+
+    public List<NoteSummary> getOnThisDay(Long userId, LocalDate date) {
+        return noteCalendarService.onThisDay(userId, date);
+    }
+
+    public List<NoteRevisionSummary> getRevisions(Long noteId, Long userId) {
+        return noteRevisionService.listRevisions(noteId, userId);
+    }
+
+    public Optional<NoteRevisionResponse> getRevision(Long noteId, Long userId, Long revision) {
+        return noteRevisionService.getRevision(noteId, userId, revision);
+    }
+
+    public NoteCache.Stats getCacheStats() {
+        return noteCache.getStats();
+    }
+
+    // Rows written before content_bytes existed are not in the user's stats yet (reconciliation adds them)
+    private static long storedBytes(Long contentBytes) {
+        return contentBytes == null ? 0 : contentBytes;
+    }
+
+    // Drop cached reads now, and again after commit in case a reader refilled them in between
+    private void invalidateCache(Long userId) {
+        noteCache.invalidateUser(userId);
+        TransactionHooks.afterCommit(() -> noteCache.invalidateUser(userId));
     }
 
 
@@ -0,0 +1,87 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteCursor;
+import com.dairy.backend.dto.NoteTagEntry;
+import com.dairy.backend.dto.TagFilter;
+import com.dairy.backend.repository.NoteRepository;
+import com.dairy.backend.tags.TagNames;
+import com.dairy.backend.tags.UserTagIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tag filters over a user's notes, answered from a per-user bitmap index.
+ * The index is built lazily from a (note, updatedAt, tag) projection and kept
+ * current by NoteService writes once they commit. At most notes.tags.max-users
+ * indexes stay in memory (see UserIndexes).
+ */
+@Service
+public class NoteTagService {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${notes.tags.max-users:1000}")
+    private int maxUsers;
+
+    private UserIndexes<UserTagIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = new UserIndexes<>(this::build, maxUsers);
+    }
+
+    public Set<Long> matchingIds(Long userId, TagFilter filter) {
+        return indexFor(userId).matching(
+                TagNames.normalize(filter.getTag()),
+                TagNames.normalize(filter.getAnyTag()),
+                TagNames.normalize(filter.getNotTag()));
+    }
+
+    // Up to limit matching note ids after the cursor, newest first
+    public List<Long> page(Long userId, TagFilter filter, NoteCursor after, int limit) {
+        return indexFor(userId).page(
+                TagNames.normalize(filter.getTag()),
+                TagNames.normalize(filter.getAnyTag()),
+                TagNames.normalize(filter.getNotTag()),
+                after == null ? null : after.updatedAt(),
+                after == null ? null : after.id(),
+                limit);
+    }
+
+    public Map<String, Integer> tagCounts(Long userId) {
+        return indexFor(userId).tagCounts();
+    }
+
+    // Called from NoteService; a null tag set means the tags did not change
+    public void noteWritten(Long userId, Long noteId, LocalDateTime updatedAt, Set<String> tags) {
+        Set<String> snapshot = tags == null ? null : Set.copyOf(tags);
+        TransactionHooks.afterCommit(() -> indexes.update(userId, index -> index.put(noteId, updatedAt, snapshot)));
+    }
+
+    public void noteRemoved(Long userId, Long noteId) {
+        TransactionHooks.afterCommit(() -> indexes.update(userId, index -> index.remove(noteId)));
+    }
+
+    private UserTagIndex indexFor(Long userId) {
+        return indexes.get(userId);
+    }
+
+    private UserTagIndex build(Long userId) {
+        UserTagIndex index = new UserTagIndex();
+        for (NoteTagEntry entry : noteRepository.findTagEntriesByUserId(userId)) {
+            index.put(entry.noteId(), entry.updatedAt(), null);
+            if (entry.tag() != null) {
+                index.addTag(entry.noteId(), entry.tag());
+            }
+        }
+        return index;
+    }
+}
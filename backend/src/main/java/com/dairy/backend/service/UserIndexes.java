@@ -0,0 +1,169 @@
+package com.dairy.backend.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lazily built per-user in-memory indexes (search, calendar, tags), at most
+ * maxUsers of them, least recently used evicted first.
+ *
+ * A build runs outside the lock and other readers of the same user wait for
+ * it. Changes committed while it runs are logged and replayed onto the fresh
+ * index before it is published, so an edit that lands between the database
+ * read and publication is not lost. Changes must therefore be idempotent
+ * (put/replace/remove), since one that the build already saw may be replayed.
+ */
+final class UserIndexes<I> {
+
+    private static final class Slot<I> {
+        final CompletableFuture<I> ready = new CompletableFuture<>();
+        // Changes waiting for the build; null once the index is published
+        List<Consumer<I>> pending = new ArrayList<>();
+    }
+
+    private final Function<Long, I> builder;
+    private final int maxUsers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Slot<I>> slots = new LinkedHashMap<>(64, 0.75f, true);
+
+    UserIndexes(Function<Long, I> builder, int maxUsers) {
+        this.builder = builder;
+        this.maxUsers = Math.max(1, maxUsers);
+    }
+
+    I get(Long userId) {
+        Slot<I> slot;
+        boolean build = false;
+        lock.lock();
+        try {
+            slot = slots.get(userId);
+            if (slot == null) {
+                slot = new Slot<>();
+                slots.put(userId, slot);
+                build = true;
+                evictOverflow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (build) {
+            build(userId, slot);
+        }
+        try {
+            return slot.ready.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Applies a committed change; users whose index isn't loaded are skipped, their next build reads it from the database
+    void update(Long userId, Consumer<I> change) {
+        I index;
+        lock.lock();
+        try {
+            Slot<I> slot = slots.get(userId);
+            if (slot == null) {
+                return;
+            }
+            if (slot.pending != null) {
+                slot.pending.add(change);
+                return;
+            }
+            index = slot.ready.getNow(null);
+        } finally {
+            lock.unlock();
+        }
+        change.accept(index);
+    }
+
+    // The loaded index, or null; never builds
+    I peek(Long userId) {
+        lock.lock();
+        try {
+            Slot<I> slot = slots.get(userId);
+            return slot == null || slot.pending != null ? null : slot.ready.getNow(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<I> loaded() {
+        lock.lock();
+        try {
+            List<I> indexes = new ArrayList<>(slots.size());
+            for (Slot<I> slot : slots.values()) {
+                if (slot.pending == null) {
+                    indexes.add(slot.ready.getNow(null));
+                }
+            }
+            return indexes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            slots.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void build(Long userId, Slot<I> slot) {
+        I index;
+        try {
+            index = builder.apply(userId);
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                slots.remove(userId, slot);
+                slot.pending = null;
+            } finally {
+                lock.unlock();
+            }
+            slot.ready.completeExceptionally(e);
+            return;
+        }
+        lock.lock();
+        try {
+            // Replay under the lock so no change can slip between the log and publication
+            for (Consumer<I> change : slot.pending) {
+                change.accept(index);
+            }
+            slot.pending = null;
+            slot.ready.complete(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Indexes still being built are skipped; they have waiters and a change log
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, Slot<I>>> eldest = slots.entrySet().iterator();
+        while (slots.size() > maxUsers && eldest.hasNext()) {
+            if (eldest.next().getValue().pending == null) {
+                eldest.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteUsage;
+import com.dairy.backend.exception.QuotaExceededException;
+import com.dairy.backend.model.Notes;
+import com.dairy.backend.model.UserNoteStats;
+import com.dairy.backend.repository.NoteRepository;
+import com.dairy.backend.repository.UserNoteStatsRepository;
+import com.dairy.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains user_note_stats next to every note write and enforces the per-user
+ * quotas from it. Deltas are applied after the note change has been written in
+ * the same transaction, so the row commits or rolls back together with it.
+ *
+ * A scheduled reconciliation recomputes every row from the notes table to
+ * repair drift, e.g. from an update and a delete of the same note racing.
+ * It also backfills content_bytes and word_count on rows older than those columns.
+ */
+@Service
+public class UserNoteStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(UserNoteStatsService.class);
+
+    private static final int BACKFILL_BATCH = 200;
+
+    @Autowired
+    private UserNoteStatsRepository statsRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteCalendarService noteCalendarService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 0 means unlimited
+    @Value("${notes.quota.max-notes:0}")
+    private long maxNotes;
+
+    @Value("${notes.quota.max-content-bytes:0}")
+    private long maxContentBytes;
+
+    public void applyDelta(Long userId, long notes, long bytes) {
+        if (notes == 0 && bytes == 0) {
+            return;
+        }
+        if (adjust(userId, notes, bytes)) {
+            return;
+        }
+
+        // Either over quota, or the first write since stats existed for this user. Seeding counts the notes
+        // table as this transaction sees it, so the row already includes this change: only the quota is left
+        // to check. If a concurrent first write seeded the row instead, apply the change on top of it.
+        if (seed(userId)) {
+            UserNoteStats seeded = statsRepository.findById(userId).orElseThrow();
+            if ((notes > 0 && seeded.getNoteCount() > limit(maxNotes))
+                    || (bytes > 0 && seeded.getContentBytes() > limit(maxContentBytes))) {
+                throw quotaExceeded(seeded.getNoteCount(), seeded.getContentBytes());
+            }
+            return;
+        }
+        if (adjust(userId, notes, bytes)) {
+            return;
+        }
+        UserNoteStats current = statsRepository.findById(userId).orElseThrow();
+        throw quotaExceeded(current.getNoteCount() + notes, current.getContentBytes() + bytes);
+    }
+
+    private boolean adjust(Long userId, long notes, long bytes) {
+        return statsRepository.adjustWithinQuota(userId, notes, bytes, limit(maxNotes), limit(maxContentBytes)) == 1;
+    }
+
+    // Runs in the caller's transaction on its connection; another connection here could deadlock a full pool.
+    // The user row lock makes a concurrent first write wait for this one to commit and then find the row.
+    // Callers have already written (flushed) their change, so the count includes it. Returns true if inserted.
+    private boolean seed(Long userId) {
+        userRepository.lockById(userId);
+        return statsRepository.insertFromNotes(userId) == 1;
+    }
+
+    public long getNoteCount(Long userId) {
+        return statsRepository.findById(userId)
+                .map(UserNoteStats::getNoteCount)
+                .orElseGet(() -> noteRepository.countByUserId(userId));
+    }
+
+    @Scheduled(cron = "${notes.stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long backfilled = 0;
+        List<Notes> batch;
+        do {
+            batch = transaction.execute(status -> {
+                List<Notes> notes = noteRepository.findByContentBytesIsNullOrWordCountIsNull(PageRequest.of(0, BACKFILL_BATCH));
+                for (Notes note : notes) {
+                    noteRepository.setContentSizes(note.getId(),
+                            Notes.contentBytesOf(note.getContent()), Notes.wordCountOf(note.getContent()));
+                }
+                return notes;
+            });
+            backfilled += batch.size();
+        } while (batch.size() == BACKFILL_BATCH);
+        if (backfilled > 0) {
+            noteCalendarService.invalidateAll();
+        }
+
+        int repaired = 0;
+        for (Long userId : userRepository.findAllIds()) {
+            if (Boolean.TRUE.equals(transaction.execute(status -> reconcileUser(userId)))) {
+                repaired++;
+            }
+        }
+        logger.info("Note stats reconciled: {} rows repaired, {} note sizes backfilled", repaired, backfilled);
+    }
+
+    // Holds the stats row lock while recounting, so concurrent writers apply their deltas on top of the fixed value.
+    // The user row lock comes first, as in seed(), so a first write can't insert the row under a missing-row recount.
+    private boolean reconcileUser(Long userId) {
+        userRepository.lockById(userId);
+        Optional<UserNoteStats> current = statsRepository.findForUpdate(userId);
+        NoteUsage actual = noteRepository.findUsageByUserId(userId);
+        if (current.isEmpty()) {
+            if (actual.noteCount() == 0) {
+                return false;
+            }
+            statsRepository.save(new UserNoteStats(userId, actual.noteCount(), actual.contentBytes()));
+            return true;
+        }
+
+        UserNoteStats stats = current.get();
+        if (stats.getNoteCount() == actual.noteCount() && stats.getContentBytes() == actual.contentBytes()) {
+            return false;
+        }
+        logger.warn("Note stats for user {} drifted: {} notes / {} bytes recorded, {} / {} actual",
+                userId, stats.getNoteCount(), stats.getContentBytes(), actual.noteCount(), actual.contentBytes());
+        stats.setNoteCount(actual.noteCount());
+        stats.setContentBytes(actual.contentBytes());
+        return true;
+    }
+
+    private QuotaExceededException quotaExceeded(long noteCount, long contentBytes) {
+        if (noteCount > limit(maxNotes)) {
+            return new QuotaExceededException("Note limit of " + maxNotes + " reached");
+        }
+        return new QuotaExceededException("Storage quota of " + maxContentBytes + " bytes exceeded");
+    }
+
+    private static long limit(long configured) {
+        return configured > 0 ? configured : Long.MAX_VALUE;
+    }
+}
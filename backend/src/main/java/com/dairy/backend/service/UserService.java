@@ -4,17 +4,16 @@ package com.dairy.backend.service;
 import com.dairy.backend.dto.LoginRequest;
 import com.dairy.backend.dto.LoginResponse;
 import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.exception.TooManyRequestsException;
 import com.dairy.backend.model.*;
 import com.dairy.backend.repository.UserRepository;
-import com.dairy.backend.security.CustomUserDetailsService;
 import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.security.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -23,77 +22,45 @@ import java.util.Optional;
 @Service
 public class UserService {
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    @Autowired
-    private CustomUserDetailsService userDetailsService;
-
-
-
-
-
-
+    private final UserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
 
+    // One user lookup per login; BCrypt runs on the bounded hashing pool
     public LoginResponse login(LoginRequest loginRequest) {
         Optional<User> userOptional = userRepository.findByUsername(loginRequest.getUsername());
+        User user;
         if (userOptional.isEmpty()) {
             // User doesn't exist, create new user automatically
-            User newUser = signup(SignupRequest.builder()
-                    .username(loginRequest.getUsername())
-                    .password(loginRequest.getPassword())
-
-                    .build());
-
-            // Generate token for new user
-            UserDetails userDetails = userDetailsService.loadUserByUsername(newUser.getUsername());
-            String token = jwtUtil.generateToken(userDetails);
-
-            return LoginResponse.builder()
-                    .token(token)
-                    .id(newUser.getId())
-                    .username(newUser.getUsername())
-
-                    .role(newUser.getRole().name())
-                    .build();
+            user = createUser(loginRequest.getUsername(), loginRequest.getPassword());
+        } else {
+            user = userOptional.get();
+            accountStatusChecker.check(user);
+            if (!passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
+                throw new BadCredentialsException("Invalid username or password");
+            }
+            if (passwordHashingService.needsRehash(user.getPassword())) {
+                try {
+                    userRepository.updatePassword(user.getId(), passwordHashingService.encode(loginRequest.getPassword()));
+                } catch (TooManyRequestsException e) {
+                    // Best effort: the old hash still works, the upgrade happens on a later login
+                }
+            }
         }
 
-        try {
-            // Authenticate user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword())
-            );
-
-            // Load user details
-            UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getUsername());
-
-            // Generate JWT token
-            String token = jwtUtil.generateToken(userDetails);
-
-            // Get user info
-            User user = userRepository.findByUsername(loginRequest.getUsername()).orElseThrow();
-
-            return LoginResponse.builder()
-                    .token(token)
-                    .id(user.getId())
-                    .username(user.getUsername())
-                    .role(user.getRole().name()).build();
-
-        } catch (BadCredentialsException e) {
-            throw new BadCredentialsException("Invalid username or password", e);
-
-        }
+        return LoginResponse.builder()
+                .token(jwtUtil.generateToken(user))
+                .id(user.getId())
+                .username(user.getUsername())
+                .role(user.getRole().name())
+                .build();
     }
 
     public User signup(SignupRequest signupRequest) {
@@ -101,11 +68,13 @@ public class UserService {
         if (userRepository.existsByUsername(signupRequest.getUsername())) {
             throw new RuntimeException("Username is already taken!");
         }
+        return createUser(signupRequest.getUsername(), signupRequest.getPassword());
+    }
 
-
+    private User createUser(String username, String password) {
         // Create new user
-        User user = User.builder().username(signupRequest.getUsername()).
-                password(passwordEncoder.encode(signupRequest.getPassword())).
+        User user = User.builder().username(username).
+                password(passwordHashingService.encode(password)).
                 role(Role.USER).
                 enabled(true)
                         .accountNonExpired(true)
@@ -115,7 +84,12 @@ public class UserService {
 
 
 
-        return userRepository.save(user);
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent signup for the same name
+            throw new RuntimeException("Username is already taken!", e);
+        }
     }
 }
 
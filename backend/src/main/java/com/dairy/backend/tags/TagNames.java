@@ -0,0 +1,47 @@
+package com.dairy.backend.tags;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical tag form: trimmed, lower-case, an optional leading '#' dropped.
+ * Letters, digits, '_' and '-' only, so tags are safe in query strings.
+ */
+public final class TagNames {
+
+    public static final int MAX_LENGTH = 50;
+    public static final int MAX_PER_NOTE = 20;
+
+    private static final Pattern VALID = Pattern.compile("[\\p{L}\\p{N}_-]+");
+
+    private TagNames() {
+    }
+
+    public static Set<String> normalize(Collection<String> raw) {
+        Set<String> tags = new TreeSet<>();
+        if (raw == null) {
+            return tags;
+        }
+        for (String value : raw) {
+            if (value == null) {
+                continue;
+            }
+            String tag = value.strip();
+            if (tag.startsWith("#")) {
+                tag = tag.substring(1);
+            }
+            tag = tag.toLowerCase(Locale.ROOT);
+            if (tag.isEmpty()) {
+                continue;
+            }
+            if (tag.length() > MAX_LENGTH || !VALID.matcher(tag).matches()) {
+                throw new IllegalArgumentException("Invalid tag: " + value);
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+}
@@ -0,0 +1,210 @@
+package com.dairy.backend.tags;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tag bitmaps over one user's notes. Each note gets a dense ordinal (freed
+ * ordinals are reused), so a tag is a BitSet over at most noteCount bits and
+ * AND/OR/NOT filters are word-wise bit operations.
+ *
+ * The updatedAt of each note is kept alongside so filtered list pages can be
+ * ordered and cut here, leaving the database a single lookup by id.
+ */
+public class UserTagIndex {
+
+    private long[] noteIds = new long[64];
+    private LocalDateTime[] updatedAt = new LocalDateTime[64];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<String, BitSet> byTag = new HashMap<>();
+    private final Map<Long, Set<String>> tagsByNote = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // A null tag set keeps the note's current tags
+    public void put(long noteId, LocalDateTime noteUpdatedAt, Set<String> tags) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(noteId);
+            if (ordinal == null) {
+                ordinal = live.nextClearBit(0);
+                ensureCapacity(ordinal + 1);
+                ordinals.put(noteId, ordinal);
+                noteIds[ordinal] = noteId;
+                live.set(ordinal);
+                tagsByNote.put(noteId, Set.of());
+            }
+            updatedAt[ordinal] = noteUpdatedAt;
+            if (tags != null) {
+                clearTags(noteId, ordinal);
+                for (String tag : tags) {
+                    byTag.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+                }
+                tagsByNote.put(noteId, Set.copyOf(tags));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Used while building from (note, tag) rows; the note must already be present
+    public void addTag(long noteId, String tag) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(noteId);
+            if (ordinal == null) {
+                return;
+            }
+            byTag.computeIfAbsent(tag, t -> new BitSet()).set(ordinal);
+            Set<String> tags = new HashSet<>(tagsByNote.get(noteId));
+            tags.add(tag);
+            tagsByNote.put(noteId, tags);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long noteId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(noteId);
+            if (ordinal == null) {
+                return;
+            }
+            clearTags(noteId, ordinal);
+            tagsByNote.remove(noteId);
+            live.clear(ordinal);
+            updatedAt[ordinal] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearTags(long noteId, int ordinal) {
+        for (String tag : tagsByNote.getOrDefault(noteId, Set.of())) {
+            BitSet bits = byTag.get(tag);
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    byTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > noteIds.length) {
+            int capacity = Math.max(size, noteIds.length * 2);
+            noteIds = Arrays.copyOf(noteIds, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+    }
+
+    public Set<Long> matching(Collection<String> all, Collection<String> any, Collection<String> none) {
+        lock.readLock().lock();
+        try {
+            BitSet result = evaluate(all, any, none);
+            Set<Long> ids = new HashSet<>(result.cardinality() * 2);
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                ids.add(noteIds[ordinal]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the next matching notes in (updatedAt DESC, id DESC) order after the given position
+    public List<Long> page(Collection<String> all, Collection<String> any, Collection<String> none,
+                           LocalDateTime afterUpdatedAt, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet result = evaluate(all, any, none);
+            Comparator<Integer> newestFirst = Comparator
+                    .comparing((Integer ordinal) -> updatedAt[ordinal], Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(ordinal -> noteIds[ordinal], Comparator.reverseOrder());
+            PriorityQueue<Integer> top = new PriorityQueue<>(newestFirst.reversed());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                if (afterUpdatedAt != null && !isAfter(ordinal, afterUpdatedAt, afterId)) {
+                    continue;
+                }
+                top.offer(ordinal);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Integer> ordered = new ArrayList<>(top);
+            ordered.sort(newestFirst);
+            List<Long> ids = new ArrayList<>(ordered.size());
+            for (int ordinal : ordered) {
+                ids.add(noteIds[ordinal]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isAfter(int ordinal, LocalDateTime afterUpdatedAt, Long afterId) {
+        LocalDateTime time = updatedAt[ordinal];
+        if (time == null) {
+            return true;
+        }
+        int compared = time.compareTo(afterUpdatedAt);
+        return compared < 0 || (compared == 0 && noteIds[ordinal] < afterId);
+    }
+
+    private BitSet evaluate(Collection<String> all, Collection<String> any, Collection<String> none) {
+        BitSet result = (BitSet) live.clone();
+        for (String tag : all) {
+            BitSet bits = byTag.get(tag);
+            if (bits == null) {
+                return new BitSet();
+            }
+            result.and(bits);
+        }
+        if (!any.isEmpty()) {
+            BitSet union = new BitSet();
+            for (String tag : any) {
+                BitSet bits = byTag.get(tag);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            result.and(union);
+        }
+        for (String tag : none) {
+            BitSet bits = byTag.get(tag);
+            if (bits != null) {
+                result.andNot(bits);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Integer> tagCounts() {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new TreeMap<>();
+            for (Map.Entry<String, BitSet> tag : byTag.entrySet()) {
+                counts.put(tag.getKey(), tag.getValue().cardinality());
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
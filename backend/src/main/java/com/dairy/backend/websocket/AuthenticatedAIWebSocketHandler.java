@@ -1,34 +1,100 @@
 package com.dairy.backend.websocket;
 
+import com.dairy.backend.ai.AiPriority;
+import com.dairy.backend.ai.AiTimer;
+import com.dairy.backend.ai.OllamaScheduler;
+import com.dairy.backend.exception.TooManyRequestsException;
+import com.dairy.backend.ratelimit.AiRateLimiter;
+import com.dairy.backend.ratelimit.RateLimitDecision;
+import com.dairy.backend.security.JwtPrincipal;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 
-@Configuration
+@Component
 public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticatedAIWebSocketHandler.class);
+    private static final String PENDING_ATTRIBUTE = "aiPendingAdmission";
+    private static final String STREAM_ATTRIBUTE = "aiStream";
+    private static final String COALESCER_ATTRIBUTE = "aiCoalescer";
+    private static final String OUTBOUND_ATTRIBUTE = "aiOutbound";
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final OllamaChatModel chatModel;
+    private final AiRateLimiter rateLimiter;
+    private final OllamaScheduler scheduler;
+    private final AiTimer timer;
+    private final Duration coalesceWindow;
+    private final int coalesceMaxChars;
+    private final Executor sendExecutor;
+    private final long sendTimeLimitMs;
+    private final long bufferSizeLimit;
+    private final OverflowPolicy overflowPolicy;
+    private ScheduledFuture<?> sendTimeCheck;
 
     // Store active user sessions
     private final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    // Outbound buffers by session id, for queue-depth stats
+    private final Map<String, SessionOutbound> outbounds = new ConcurrentHashMap<>();
 
-    public AuthenticatedAIWebSocketHandler(OllamaChatModel chatModel) {
+    public AuthenticatedAIWebSocketHandler(OllamaChatModel chatModel, AiRateLimiter rateLimiter,
+                                           OllamaScheduler scheduler, AiTimer timer,
+                                           @Qualifier("aiWebSocketSendExecutor") Executor sendExecutor,
+                                           @Value("${ai.websocket.coalesce-window-ms:40}") long coalesceWindowMs,
+                                           @Value("${ai.websocket.coalesce-max-chars:512}") int coalesceMaxChars,
+                                           @Value("${ai.websocket.outbound.send-time-limit-ms:10000}") long sendTimeLimitMs,
+                                           @Value("${ai.websocket.outbound.buffer-size-limit:524288}") long bufferSizeLimit,
+                                           @Value("${ai.websocket.outbound.overflow:COALESCE}") OverflowPolicy overflowPolicy) {
         this.chatModel = chatModel;
+        this.rateLimiter = rateLimiter;
+        this.scheduler = scheduler;
+        this.timer = timer;
+        this.sendExecutor = sendExecutor;
+        this.coalesceWindow = Duration.ofMillis(coalesceWindowMs);
+        this.coalesceMaxChars = coalesceMaxChars;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    // Offers check the send-time limit too, but a session stuck on its last frame gets no more offers
+    @PostConstruct
+    void startSendTimeCheck() {
+        sendTimeCheck = timer.scheduleAtFixedRate(
+                () -> outbounds.values().forEach(SessionOutbound::enforceSendTimeLimit),
+                Duration.ofMillis(Math.max(100, sendTimeLimitMs / 4)));
+    }
+
+    @PreDestroy
+    void stopSendTimeCheck() {
+        if (sendTimeCheck != null) {
+            sendTimeCheck.cancel(false);
+        }
     }
 
     @Override
@@ -43,6 +109,10 @@ public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
 
             // Store user session
             userSessions.put(username, session);
+            SessionOutbound outbound = new SessionOutbound(session, username, sendExecutor, overflowPolicy,
+                    sendTimeLimitMs, bufferSizeLimit);
+            session.getAttributes().put(OUTBOUND_ATTRIBUTE, outbound);
+            outbounds.put(session.getId(), outbound);
 
             logger.info("Authenticated WebSocket connection established for user: {}", username);
 
@@ -77,28 +147,71 @@ public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
         // Set security context
         SecurityContextHolder.getContext().setAuthentication(auth);
 
+        // Same per-user budget as POST /api/ai/generate
+        RateLimitDecision limit = rateLimiter.tryAcquire((JwtPrincipal) session.getAttributes().get("principal"));
+        if (!limit.allowed()) {
+            sendMessage(session, Map.of(
+                    "type", "rate_limited",
+                    "message", "AI request limit reached, please retry in " + limit.retryAfterSeconds() + "s",
+                    "retryAfterSeconds", limit.retryAfterSeconds(),
+                    "timestamp", System.currentTimeMillis()
+            ));
+            return;
+        }
+
         try {
             AiRequest request = objectMapper.readValue(message.getPayload(), AiRequest.class);
-            logger.info("Processing AI request from user: {} - Template: {}", username, request.templateId());
+            JwtPrincipal principal = (JwtPrincipal) session.getAttributes().get("principal");
 
-            // Send acknowledgment
-            sendMessage(session, Map.of(
-                    "type", "processing",
-                    "message", "Processing your request..."
-            ));
+            // Wait for an Ollama slot as interactive work, telling the client where it stands meanwhile
+            CompletableFuture<OllamaScheduler.Permit> admission = scheduler.acquire(principal.id(),
+                    AiPriority.INTERACTIVE, OllamaScheduler.costOf(request.prompt()),
+                    position -> sendMessage(session, Map.of(
+                            "type", "queued",
+                            "position", position,
+                            "timestamp", System.currentTimeMillis()
+                    )));
+            session.getAttributes().put(PENDING_ATTRIBUTE, admission);
+            admission.thenAccept(permit -> {
+                session.getAttributes().remove(PENDING_ATTRIBUTE, admission);
+                if (!session.isOpen()) {
+                    permit.release();
+                    return;
+                }
+                logger.info("Processing AI request from user: {} - Template: {}", username, request.templateId());
+
+                // Send acknowledgment
+                sendMessage(session, Map.of(
+                        "type", "processing",
+                        "message", "Processing your request...",
+                        "remaining", limit.remaining()
+                ));
 
-            // Stream AI response
-            chatModel.stream(new Prompt(request.prompt()))
-                    .doOnError(error -> sendError(session, error))
-                    .subscribe(
-                            chunk -> sendChunk(session, chunk),
-                            error -> {
-                                logger.error("Stream error for user {}: {}", username, error.getMessage());
-                                sendError(session, error);
-                            },
-                            () -> sendCompletion(session)
-                    );
+                // Stream AI response; the slot is held until the stream ends either way.
+                // Tokens are batched into chunk frames by the coalescer rather than sent one frame each.
+                ChunkCoalescer coalescer = new ChunkCoalescer((frame, droppable) -> sendFrame(session, frame, droppable),
+                        timer, coalesceWindow, coalesceMaxChars);
+                session.getAttributes().put(COALESCER_ATTRIBUTE, coalescer);
+                Disposable stream = chatModel.stream(new Prompt(request.prompt()))
+                        .doFinally(signal -> permit.release())
+                        .subscribe(
+                                chunk -> coalescer.append(textOf(chunk)),
+                                error -> {
+                                    logger.error("Stream error for user {}: {}", username, error.getMessage());
+                                    coalescer.finish(() -> sendError(session, error));
+                                },
+                                () -> coalescer.finish(() -> sendCompletion(session))
+                        );
+                session.getAttributes().put(STREAM_ATTRIBUTE, stream);
+            });
 
+        } catch (TooManyRequestsException e) {
+            sendMessage(session, Map.of(
+                    "type", "busy",
+                    "message", e.getMessage(),
+                    "retryAfterSeconds", e.getRetryAfterSeconds(),
+                    "timestamp", System.currentTimeMillis()
+            ));
         } catch (Exception e) {
             logger.error("Error processing message from user {}: {}", username, e.getMessage());
             sendError(session, e);
@@ -107,6 +220,20 @@ public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        // Give up a queued slot, or stop a running generation, nobody will read
+        if (session.getAttributes().get(PENDING_ATTRIBUTE) instanceof CompletableFuture<?> pending) {
+            pending.cancel(false);
+        }
+        if (session.getAttributes().get(STREAM_ATTRIBUTE) instanceof Disposable stream) {
+            stream.dispose();
+        }
+        if (session.getAttributes().get(COALESCER_ATTRIBUTE) instanceof ChunkCoalescer coalescer) {
+            coalescer.discard();
+        }
+        if (session.getAttributes().get(OUTBOUND_ATTRIBUTE) instanceof SessionOutbound outbound) {
+            outbound.close();
+        }
+        outbounds.remove(session.getId());
         String username = (String) session.getAttributes().get("username");
         if (username != null) {
             userSessions.remove(username);
@@ -129,13 +256,11 @@ public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void sendChunk(WebSocketSession session, ChatResponse chunk) {
-        String content = chunk.getResult().getOutput().getText();
-        sendMessage(session, Map.of(
-                "type", "chunk",
-                "content", content,
-                "timestamp", System.currentTimeMillis()
-        ));
+    private static String textOf(ChatResponse chunk) {
+        if (chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+            return null;
+        }
+        return chunk.getResult().getOutput().getText();
     }
 
     private void sendCompletion(WebSocketSession session) {
@@ -155,19 +280,32 @@ public class AuthenticatedAIWebSocketHandler extends TextWebSocketHandler {
 
     private void sendMessage(WebSocketSession session, Map<String, Object> message) {
         try {
-            if (session.isOpen()) {
-                String json = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(json));
-            }
+            sendFrame(session, new TextMessage(objectMapper.writeValueAsString(message)), false);
         } catch (IOException e) {
             logger.error("Failed to send WebSocket message: {}", e.getMessage());
         }
     }
 
+    // Hands the frame to the session's outbound buffer; the actual write happens on a send thread
+    private boolean sendFrame(WebSocketSession session, TextMessage frame, boolean droppable) {
+        if (session.getAttributes().get(OUTBOUND_ATTRIBUTE) instanceof SessionOutbound outbound) {
+            return outbound.offer(frame, droppable);
+        }
+        return true;
+    }
+
     // Get active user sessions (for admin purposes)
     public Map<String, WebSocketSession> getActiveSessions() {
         return Map.copyOf(userSessions);
     }
 
+    // Outbound queue depth per session, deepest first
+    public List<SessionOutbound.Stats> getOutboundStats() {
+        return outbounds.values().stream()
+                .map(SessionOutbound::stats)
+                .sorted(Comparator.comparingLong(SessionOutbound.Stats::queuedBytes).reversed())
+                .toList();
+    }
+
     record AiRequest(String prompt, String templateId) {}
 }
\ No newline at end of file
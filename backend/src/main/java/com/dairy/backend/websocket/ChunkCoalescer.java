@@ -0,0 +1,131 @@
+package com.dairy.backend.websocket;
+
+import com.dairy.backend.ai.AiTimer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Batches the tokens of one AI stream into fewer "chunk" frames: text is
+ * held until the window since the first pending token has passed or the
+ * pending text reaches maxChars, whichever comes first.
+ *
+ * Frames are written by one JsonGenerator kept for the whole stream over a
+ * reused byte buffer, so a frame costs the text and the final payload array
+ * rather than a Map, boxed values and a fresh serializer per token.
+ *
+ * If the sink refuses a frame (the session's outbound buffer is full) the
+ * text stays pending and is retried one window later, so a slow client gets
+ * fewer, larger chunks instead of an ever-growing queue.
+ */
+final class ChunkCoalescer {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Takes a frame for sending; droppable frames may be refused by returning false
+    @FunctionalInterface
+    interface FrameSink {
+        boolean offer(TextMessage frame, boolean droppable);
+    }
+
+    private final FrameSink sink;
+    private final AiTimer timer;
+    private final Duration window;
+    private final int maxChars;
+
+    private final StringBuilder pending = new StringBuilder();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+    private final JsonGenerator generator;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean finished;
+    // Set while the sink is refusing frames; size-triggered flushes wait for the retry
+    private boolean backedOff;
+
+    ChunkCoalescer(FrameSink sink, AiTimer timer, Duration window, int maxChars) {
+        this.sink = sink;
+        this.timer = timer;
+        this.window = window;
+        this.maxChars = Math.max(1, maxChars);
+        try {
+            this.generator = JSON.createGenerator(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Each frame is a separate root value; no separator between them
+        this.generator.setRootValueSeparator(null);
+    }
+
+    synchronized void append(String text) {
+        if (finished || text == null || text.isEmpty()) {
+            return;
+        }
+        pending.append(text);
+        if (!backedOff && (pending.length() >= maxChars || window.isZero())) {
+            flushPending(true);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = timer.schedule(this::flush, window);
+        }
+    }
+
+    synchronized void flush() {
+        if (!finished) {
+            flushPending(true);
+        }
+    }
+
+    // Sends whatever is still pending, then runs the final action (completion or error frame) in order
+    synchronized void finish(Runnable last) {
+        if (finished) {
+            return;
+        }
+        // The final chunk must not be lost or reordered after the completion frame
+        flushPending(false);
+        finished = true;
+        last.run();
+    }
+
+    // Drops pending text without sending it (the session is gone)
+    synchronized void discard() {
+        finished = true;
+        pending.setLength(0);
+        cancelScheduledFlush();
+    }
+
+    private void flushPending(boolean droppable) {
+        cancelScheduledFlush();
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("type", "chunk");
+            generator.writeStringField("content", pending.toString());
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeEndObject();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TextMessage frame = new TextMessage(buffer.toByteArray());
+        buffer.reset();
+        backedOff = !sink.offer(frame, droppable);
+        if (backedOff) {
+            scheduledFlush = timer.schedule(this::flush, window.isZero() ? Duration.ofMillis(1) : window);
+        } else {
+            pending.setLength(0);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.dairy.backend.websocket;
 
+import com.dairy.backend.security.AccountStatusCache;
+import com.dairy.backend.security.JwtPrincipal;
 import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.security.TokenRevocationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Configuration;
@@ -8,8 +11,6 @@ import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -23,11 +24,14 @@ public class JwtWebSocketInterceptor implements HandshakeInterceptor {
     private static final Logger logger = LoggerFactory.getLogger(JwtWebSocketInterceptor.class);
 
     private final JwtUtil jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final AccountStatusCache accountStatusCache;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtWebSocketInterceptor(JwtUtil jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtWebSocketInterceptor(JwtUtil jwtTokenProvider, AccountStatusCache accountStatusCache,
+                                   TokenRevocationService tokenRevocationService) {
         this.jwtTokenProvider = jwtTokenProvider;
-        this.userDetailsService = userDetailsService;
+        this.accountStatusCache = accountStatusCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -43,25 +47,27 @@ public class JwtWebSocketInterceptor implements HandshakeInterceptor {
         }
 
         try {
-            // Validate JWT token
-            if (!jwtTokenProvider.isTokenValid(token)) {
-                logger.warn("WebSocket handshake failed: Invalid JWT token");
+            // Validate the token and build the principal from its claims (no user lookup)
+            JwtPrincipal principal = jwtTokenProvider.parsePrincipal(token);
+            if (tokenRevocationService.isRevoked(principal)) {
+                logger.warn("WebSocket handshake failed: token revoked");
                 response.setStatusCode(org.springframework.http.HttpStatus.FORBIDDEN);
                 return false;
             }
-
-            // Extract username from token
-            String username = jwtTokenProvider.extractUsername(token);
-
-            // Load user details
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (!accountStatusCache.isActive(principal.id())) {
+                logger.warn("WebSocket handshake failed: account disabled");
+                response.setStatusCode(org.springframework.http.HttpStatus.FORBIDDEN);
+                return false;
+            }
+            String username = principal.username();
 
             // Create authentication object
             Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
+                    principal, null, principal.authorities());
 
             // Store authentication in WebSocket session attributes
             attributes.put("SPRING_SECURITY_CONTEXT", authentication);
+            attributes.put("principal", principal);
             attributes.put("username", username);
             attributes.put("token", token);
 
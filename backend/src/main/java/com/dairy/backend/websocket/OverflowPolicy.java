@@ -0,0 +1,11 @@
+package com.dairy.backend.websocket;
+
+// What a session's outbound buffer does with new chunk frames once it is full (see SessionOutbound)
+public enum OverflowPolicy {
+    // Refuse the frame; the stream keeps the text and sends it later as one larger chunk
+    COALESCE,
+    // Discard the oldest queued chunk frames to make room
+    DROP_OLDEST,
+    // Close the session as too slow to keep up
+    DISCONNECT
+}
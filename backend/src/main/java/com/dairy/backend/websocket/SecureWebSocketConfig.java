@@ -1,11 +1,6 @@
 package com.dairy.backend.websocket;
-import com.dairy.backend.security.JwtUtil;
-import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -15,28 +10,20 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @Component
 public class SecureWebSocketConfig implements WebSocketConfigurer {
 
-    private final OllamaChatModel chatModel;
-    private final JwtUtil jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final AuthenticatedAIWebSocketHandler aiWebSocketHandler;
+    private final JwtWebSocketInterceptor jwtWebSocketInterceptor;
 
-    public SecureWebSocketConfig(OllamaChatModel chatModel,
-                                 JwtUtil jwtTokenProvider,
-                                 UserDetailsService userDetailsService) {
-        this.chatModel = chatModel;
-        this.jwtTokenProvider = jwtTokenProvider;
-        this.userDetailsService = userDetailsService;
+    public SecureWebSocketConfig(AuthenticatedAIWebSocketHandler aiWebSocketHandler,
+                                 JwtWebSocketInterceptor jwtWebSocketInterceptor) {
+        this.aiWebSocketHandler = aiWebSocketHandler;
+        this.jwtWebSocketInterceptor = jwtWebSocketInterceptor;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(authenticatedAiWebSocketHandler(), "/ws/ai-chat")
+        registry.addHandler(aiWebSocketHandler, "/ws/ai-chat")
                 .setAllowedOriginPatterns("*")
-                .addInterceptors(new JwtWebSocketInterceptor(jwtTokenProvider, userDetailsService));
+                .addInterceptors(jwtWebSocketInterceptor);
 
     }
-
-    @Bean
-    public WebSocketHandler authenticatedAiWebSocketHandler() {
-        return new AuthenticatedAIWebSocketHandler(chatModel);
-    }
 }
\ No newline at end of file
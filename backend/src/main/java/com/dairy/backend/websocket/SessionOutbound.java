@@ -0,0 +1,244 @@
+package com.dairy.backend.websocket;
+
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound buffer for one WebSocket session. Producers (stream
+ * callbacks, timers, the scheduler) only enqueue; frames are written by a
+ * drain task on the send executor, one at a time, so a slow client ties up
+ * neither the thread producing its tokens nor anyone else's session.
+ *
+ * Chunk frames count against the byte limit and are subject to the
+ * OverflowPolicy; control frames (queued, processing, complete, error) are
+ * always accepted. A session whose current send has been blocked for longer
+ * than the send-time limit is closed, either on the next offer or by the
+ * handler's periodic check (enforceSendTimeLimit), so a session stuck on its
+ * last frame is closed too. The container's own blocking-send timeout is set
+ * to the same limit, so the stuck send fails and its sender thread is
+ * released.
+ */
+public final class SessionOutbound {
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutbound.class);
+
+    // Frames a drain task sends before handing its thread to other sessions
+    private static final int DRAIN_BATCH = 16;
+
+    // Tomcat's per-session blocking write timeout (org.apache.tomcat.websocket.Constants)
+    private static final String BLOCKING_SEND_TIMEOUT_PROPERTY = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    public record Stats(String sessionId, String user, int queuedFrames, long queuedBytes,
+                        int maxQueuedFrames, long sent, long dropped, boolean closed) {
+    }
+
+    private record Frame(TextMessage message, boolean droppable) {
+    }
+
+    private static final CloseStatus SEND_TIME_EXCEEDED =
+            CloseStatus.SESSION_NOT_RELIABLE.withReason("Send time limit exceeded");
+
+    private final WebSocketSession session;
+    private final String user;
+    private final Executor sendExecutor;
+    private final OverflowPolicy policy;
+    private final long sendTimeLimitMs;
+    private final long bufferSizeLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private int maxQueuedFrames;
+    private long sent;
+    private long dropped;
+    private boolean draining;
+    private boolean closed;
+    private volatile long sendStartedAt;
+
+    SessionOutbound(WebSocketSession session, String user, Executor sendExecutor, OverflowPolicy policy,
+                    long sendTimeLimitMs, long bufferSizeLimit) {
+        this.session = session;
+        this.user = user;
+        this.sendExecutor = sendExecutor;
+        this.policy = policy;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession(Session.class) instanceof Session container) {
+            container.getUserProperties().put(BLOCKING_SEND_TIMEOUT_PROPERTY, sendTimeLimitMs);
+        }
+    }
+
+    /**
+     * Queues a frame. Returns false only when a droppable frame is refused
+     * under COALESCE; the caller should hold on to its content and retry.
+     */
+    boolean offer(TextMessage message, boolean droppable) {
+        CloseStatus closeWith = null;
+        boolean startDrain = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            if (sendTimeExceeded()) {
+                closeWith = SEND_TIME_EXCEEDED;
+            } else {
+                int bytes = message.getPayloadLength();
+                // An empty buffer always takes the frame, however large, so nothing can stall forever
+                if (droppable && !queue.isEmpty() && queuedBytes + bytes > bufferSizeLimit) {
+                    switch (policy) {
+                        case COALESCE:
+                            return false;
+                        case DROP_OLDEST:
+                            while (queuedBytes + bytes > bufferSizeLimit && dropOldestChunk()) {
+                                dropped++;
+                            }
+                            break;
+                        case DISCONNECT:
+                            closeWith = CloseStatus.SESSION_NOT_RELIABLE.withReason("Outbound buffer full");
+                            break;
+                    }
+                }
+                if (closeWith == null) {
+                    queue.addLast(new Frame(message, droppable));
+                    queuedBytes += bytes;
+                    maxQueuedFrames = Math.max(maxQueuedFrames, queue.size());
+                    startDrain = !draining;
+                    draining = true;
+                }
+            }
+            if (closeWith != null) {
+                closeLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (closeWith != null) {
+            logger.warn("Closing slow WebSocket session {} for user {}: {}", session.getId(), user, closeWith.getReason());
+            closeSession(closeWith);
+            return true;
+        }
+        if (startDrain) {
+            sendExecutor.execute(this::drain);
+        }
+        return true;
+    }
+
+    // Called from a timer: must not block, so the close itself runs on the send executor
+    void enforceSendTimeLimit() {
+        lock.lock();
+        try {
+            if (closed || !sendTimeExceeded()) {
+                return;
+            }
+            closeLocked();
+        } finally {
+            lock.unlock();
+        }
+        logger.warn("Closing slow WebSocket session {} for user {}: {}", session.getId(), user, SEND_TIME_EXCEEDED.getReason());
+        sendExecutor.execute(() -> closeSession(SEND_TIME_EXCEEDED));
+    }
+
+    // Drops anything still queued; called when the session has closed
+    void close() {
+        lock.lock();
+        try {
+            closeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(session.getId(), user, queue.size(), queuedBytes, maxQueuedFrames, sent, dropped, closed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        for (int batch = 0; batch < DRAIN_BATCH; batch++) {
+            Frame frame;
+            lock.lock();
+            try {
+                frame = queue.pollFirst();
+                if (frame == null || closed) {
+                    draining = false;
+                    return;
+                }
+                queuedBytes -= frame.message().getPayloadLength();
+            } finally {
+                lock.unlock();
+            }
+
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                if (session.isOpen()) {
+                    session.sendMessage(frame.message());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Includes the container's send timeout; the session can't be trusted with further frames
+                logger.debug("WebSocket send failed for session {}: {}", session.getId(), e.getMessage());
+                close();
+                closeSession(CloseStatus.SESSION_NOT_RELIABLE);
+                return;
+            } finally {
+                sendStartedAt = 0;
+            }
+
+            lock.lock();
+            try {
+                sent++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        // More to send: go to the back of the executor queue so other sessions get a turn
+        sendExecutor.execute(this::drain);
+    }
+
+    private boolean sendTimeExceeded() {
+        long started = sendStartedAt;
+        return started != 0 && System.currentTimeMillis() - started > sendTimeLimitMs;
+    }
+
+    private boolean dropOldestChunk() {
+        for (Iterator<Frame> frames = queue.iterator(); frames.hasNext(); ) {
+            Frame frame = frames.next();
+            if (frame.droppable()) {
+                frames.remove();
+                queuedBytes -= frame.message().getPayloadLength();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeLocked() {
+        closed = true;
+        queue.clear();
+        queuedBytes = 0;
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            logger.debug("Failed to close WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
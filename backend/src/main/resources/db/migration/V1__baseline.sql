@@ -0,0 +1,31 @@
+CREATE TABLE users (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username                VARCHAR(20)  NOT NULL,
+    password                VARCHAR(120) NOT NULL,
+    master_password         VARCHAR(255),
+    role                    VARCHAR(32),
+    enabled                 BOOLEAN      NOT NULL DEFAULT TRUE,
+    account_non_expired     BOOLEAN      NOT NULL DEFAULT TRUE,
+    account_non_locked      BOOLEAN      NOT NULL DEFAULT TRUE,
+    credentials_non_expired BOOLEAN      NOT NULL DEFAULT TRUE,
+    created_at              TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+-- Pooled optimizer: must match allocationSize on Notes.id
+CREATE SEQUENCE notes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE notes (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    title      VARCHAR(255) NOT NULL,
+    content    TEXT,
+    snippet    VARCHAR(200),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    version    BIGINT       NOT NULL DEFAULT 0,
+    user_id    BIGINT       NOT NULL,
+    CONSTRAINT fk_notes_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- Keyset pagination, list stamps and per-user lookups
+CREATE INDEX idx_notes_user_updated_id ON notes (user_id, updated_at DESC, id DESC);
@@ -0,0 +1,13 @@
+CREATE SEQUENCE note_revisions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE note_revisions (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    note_id    BIGINT       NOT NULL,
+    user_id    BIGINT       NOT NULL,
+    revision   BIGINT       NOT NULL,
+    kind       VARCHAR(16)  NOT NULL,
+    title      VARCHAR(255) NOT NULL,
+    payload    TEXT,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_note_revisions_note_revision UNIQUE (note_id, revision)
+);
@@ -0,0 +1,10 @@
+-- UTF-8 size of each note's content (the content column itself may hold compressed text).
+-- Left NULL for existing rows; the stats reconciliation job backfills them.
+ALTER TABLE notes ADD COLUMN content_bytes BIGINT;
+
+CREATE TABLE user_note_stats (
+    user_id       BIGINT NOT NULL PRIMARY KEY,
+    note_count    BIGINT NOT NULL,
+    content_bytes BIGINT NOT NULL,
+    CONSTRAINT fk_user_note_stats_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
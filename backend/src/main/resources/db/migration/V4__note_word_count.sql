@@ -0,0 +1,2 @@
+-- Word count per note for calendar views; existing rows are backfilled by the stats reconciliation job
+ALTER TABLE notes ADD COLUMN word_count INT;
@@ -0,0 +1,8 @@
+CREATE TABLE note_tags (
+    note_id BIGINT      NOT NULL,
+    tag     VARCHAR(50) NOT NULL,
+    CONSTRAINT fk_note_tags_note FOREIGN KEY (note_id) REFERENCES notes (id)
+);
+
+CREATE INDEX idx_note_tags_note ON note_tags (note_id);
+CREATE INDEX idx_note_tags_tag ON note_tags (tag);
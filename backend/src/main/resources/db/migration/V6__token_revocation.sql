@@ -0,0 +1,16 @@
+-- Tokens revoked by logout, kept until their natural expiry
+CREATE TABLE revoked_tokens (
+    token_id   VARCHAR(36)                 NOT NULL PRIMARY KEY,
+    user_id    BIGINT                      NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- Logout from all devices: every token issued at or before revoked_before is rejected
+CREATE TABLE user_token_cutoffs (
+    user_id        BIGINT                      NOT NULL PRIMARY KEY,
+    revoked_before TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    expires_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_user_token_cutoffs_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,222 @@
+package com.dairy.backend;
+
+import com.dairy.backend.dto.NoteRequest;
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.User;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.NoteService;
+import com.dairy.backend.service.UserService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test for spring.threads.virtual.enabled, printed only (timings depend
+ * on the machine). Each mode boots the whole application on a random port
+ * with its own in-memory database, against a stub Ollama that takes
+ * GENERATION_MS per reply. While AI requests are in flight, CLIENTS
+ * concurrent clients each create a note and list their notes ROUNDS times.
+ * Tomcat is capped at 50 platform threads, so in platform mode the clients
+ * oversubscribe the request pool; in virtual mode every request gets its own
+ * thread and the only bound left is the connection pool. Both modes run
+ * twice, alternating: whichever boots first is measured on a cold JIT, so
+ * read the second pass.
+ *
+ * Also checks that AI overflow is rejected by the scheduler alone: one user
+ * fires more requests than its queue allows and every response is 200 or
+ * 429, never 503 from the executor.
+ */
+class ExecutionModeLoadTests {
+
+    private static final int CLIENTS = 200;
+    private static final int ROUNDS = 5;
+    private static final int USERS = 20;
+    private static final long GENERATION_MS = 500;
+
+    private static HttpServer ollama;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @BeforeAll
+    static void startOllama() throws Exception {
+        ollama = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ollama.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        ollama.createContext("/api/chat", exchange -> {
+            try {
+                Thread.sleep(GENERATION_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = """
+                    {"model":"gemma3:latest","created_at":"2026-01-01T00:00:00Z",
+                     "message":{"role":"assistant","content":"A generated entry."},
+                     "done":true,"done_reason":"stop","total_duration":1,"load_duration":1,
+                     "prompt_eval_count":1,"prompt_eval_duration":1,"eval_count":1,"eval_duration":1}
+                    """.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        ollama.start();
+    }
+
+    @AfterAll
+    static void stopOllama() {
+        ollama.stop(0);
+    }
+
+    @Test
+    void platformAndVirtualThreadsUnderLoad() throws Exception {
+        for (int pass = 1; pass <= 2; pass++) {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                try (ConfigurableApplicationContext context = boot(virtualThreads)) {
+                    run((virtualThreads ? "virtual" : "platform") + " threads, pass " + pass, context);
+                }
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext boot(boolean virtualThreads) {
+        // Command-line arguments, so they win over application.properties
+        return new SpringApplicationBuilder(BackendApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                "--spring.jpa.show-sql=false",
+                "--server.tomcat.threads.max=50",
+                "--spring.ai.ollama.base-url=http://localhost:" + ollama.getAddress().getPort(),
+                "--ai.rate-limit.enabled=false",
+                "--ai.scheduler.max-concurrent=4");
+    }
+
+    private void run(String mode, ConfigurableApplicationContext context) throws Exception {
+        String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        UserService userService = context.getBean(UserService.class);
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        NoteService noteService = context.getBean(NoteService.class);
+        List<String> bearers = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+            // Established accounts: the load measures steady-state requests, not first writes
+            noteService.createNote(new NoteRequest("First", "Already here.", null, null), user.getId());
+            bearers.add("Bearer " + jwtUtil.generateToken(user));
+        }
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Opens the pool's connections and Tomcat's threads before measuring
+            runNoteClients(clients, base, bearers, CLIENTS, 1);
+
+            // One greedy user overflows its scheduler queue, then every user asks once more
+            List<CompletableFuture<HttpResponse<String>>> ai = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                ai.add(generate(base, bearers.get(0)));
+            }
+            for (String bearer : bearers) {
+                ai.add(generate(base, bearer));
+            }
+
+            long start = System.nanoTime();
+            long[] latencies = runNoteClients(clients, base, bearers, CLIENTS, ROUNDS);
+            long elapsed = System.nanoTime() - start;
+
+            Map<Integer, Integer> aiStatuses = new TreeMap<>();
+            for (CompletableFuture<HttpResponse<String>> response : ai) {
+                aiStatuses.merge(response.get().statusCode(), 1, Integer::sum);
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%s: %d note requests from %d clients in %.0f ms (%.0f req/s), "
+                            + "p50 %.1f ms, p99 %.1f ms, max %.1f ms; AI responses %s%n",
+                    mode, latencies.length, CLIENTS, elapsed / 1e6, latencies.length * 1e9 / elapsed,
+                    latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6,
+                    latencies[latencies.length - 1] / 1e6, aiStatuses);
+
+            assertTrue(aiStatuses.keySet().stream().allMatch(status -> status == 200 || status == 429),
+                    "only the scheduler may reject AI work: " + aiStatuses);
+            assertTrue(aiStatuses.getOrDefault(429, 0) > 0, "the greedy user should overflow its queue");
+        }
+    }
+
+    // Each client creates a note and lists its user's notes per round; any non-2xx fails the test
+    private long[] runNoteClients(ExecutorService clients, String base, List<String> bearers, int count, int rounds)
+            throws Exception {
+        Map<Integer, Integer> failures = new ConcurrentHashMap<>();
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int client = 0; client < count; client++) {
+            String bearer = bearers.get(client % bearers.size());
+            results.add(clients.submit(() -> {
+                long[] latencies = new long[rounds * 2];
+                for (int round = 0; round < rounds; round++) {
+                    latencies[round * 2] = timed(HttpRequest.newBuilder(URI.create(base + "/api/notes"))
+                            .header("Authorization", bearer)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"title\":\"Load\",\"content\":\"Written under load.\"}"))
+                            .build(), failures);
+                    latencies[round * 2 + 1] = timed(HttpRequest.newBuilder(URI.create(base + "/api/notes"))
+                            .header("Authorization", bearer)
+                            .GET()
+                            .build(), failures);
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[count * rounds * 2];
+        for (int i = 0; i < results.size(); i++) {
+            System.arraycopy(results.get(i).get(), 0, all, i * rounds * 2, rounds * 2);
+        }
+        assertEquals(Map.of(), failures, "note requests failed under load");
+        return all;
+    }
+
+    private long timed(HttpRequest request, Map<Integer, Integer> failures) throws Exception {
+        long start = System.nanoTime();
+        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        long latency = System.nanoTime() - start;
+        if (status >= 300) {
+            failures.merge(status, 1, Integer::sum);
+        }
+        return latency;
+    }
+
+    private CompletableFuture<HttpResponse<String>> generate(String base, String bearer) {
+        return http.sendAsync(HttpRequest.newBuilder(URI.create(base + "/api/ai/generate"))
+                        .header("Authorization", bearer)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"domain\":\"journaling\",\"format\":\"text\",\"keyPoints\":\"mood\",\"input\":\"Summarise my day\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,110 @@
+package com.dairy.backend.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairQueueTests {
+
+    private record TestJob(Long userId, int cost, String name) implements FairQueue.Job {
+    }
+
+    @Test
+    void alternatesBetweenUsersWithEqualCosts() {
+        FairQueue<TestJob> queue = new FairQueue<>(1);
+        add(queue, 1L, 1, "a1", "a2", "a3", "a4");
+        add(queue, 2L, 1, "b1", "b2");
+
+        assertEquals(List.of("a1", "b1", "a2", "b2", "a3", "a4"), drain(queue));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void deficitCarriesOverUntilItCoversTheJob() {
+        FairQueue<TestJob> queue = new FairQueue<>(2);
+        add(queue, 1L, 3, "big1", "big2");
+        add(queue, 2L, 1, "s1", "s2", "s3", "s4");
+
+        // A cost-3 job waits two turns to bank enough credit; the small user spends 2 per turn meanwhile
+        assertEquals(List.of("s1", "s2", "big1", "s3", "s4", "big2"), drain(queue));
+    }
+
+    @Test
+    void costSharesFollowTheQuantum() {
+        FairQueue<TestJob> queue = new FairQueue<>(4);
+        for (int i = 0; i < 50; i++) {
+            queue.add(new TestJob(1L, 4, "heavy"));
+            queue.add(new TestJob(2L, 1, "light"));
+        }
+        // Over the first 40 dispatches each user gets about the same total cost, not the same job count
+        Map<String, Integer> cost = new LinkedHashMap<>(Map.of("heavy", 0, "light", 0));
+        for (int i = 0; i < 40; i++) {
+            TestJob job = queue.poll();
+            cost.merge(job.name(), job.cost(), Integer::sum);
+        }
+        assertTrue(Math.abs(cost.get("heavy") - cost.get("light")) <= 4, cost.toString());
+    }
+
+    @Test
+    void idleUsersDoNotKeepCredit() {
+        FairQueue<TestJob> queue = new FairQueue<>(5);
+        add(queue, 1L, 1, "a1");
+        add(queue, 2L, 3, "b1");
+        // a1 banks 5 and spends 1; once its queue empties the remaining 4 are forgotten
+        assertEquals("a1", queue.poll().name());
+        add(queue, 1L, 5, "a2");
+        assertEquals("b1", queue.poll().name());
+        assertEquals("a2", queue.poll().name());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void removeWithdrawsAQueuedJob() {
+        FairQueue<TestJob> queue = new FairQueue<>(1);
+        TestJob a1 = new TestJob(1L, 1, "a1");
+        TestJob b1 = new TestJob(2L, 1, "b1");
+        queue.add(a1);
+        queue.add(b1);
+        add(queue, 1L, 1, "a2");
+
+        assertTrue(queue.remove(b1));
+        assertFalse(queue.remove(b1));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.sizeFor(2L));
+        assertEquals(List.of("a1", "a2"), drain(queue));
+        assertFalse(queue.remove(a1));
+    }
+
+    @Test
+    void positionsInterleaveUsers() {
+        FairQueue<TestJob> queue = new FairQueue<>(1);
+        add(queue, 1L, 1, "a1", "a2", "a3");
+        add(queue, 2L, 1, "b1");
+
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        queue.forEachPosition(10, (job, position) -> positions.put(job.name(), position));
+        assertEquals(Map.of("a1", 11, "b1", 12, "a2", 13, "a3", 14), positions);
+    }
+
+    private static void add(FairQueue<TestJob> queue, Long userId, int cost, String... names) {
+        for (String name : names) {
+            queue.add(new TestJob(userId, cost, name));
+        }
+    }
+
+    private static List<String> drain(FairQueue<TestJob> queue) {
+        List<String> names = new ArrayList<>();
+        for (TestJob job = queue.poll(); job != null; job = queue.poll()) {
+            names.add(job.name());
+        }
+        return names;
+    }
+}
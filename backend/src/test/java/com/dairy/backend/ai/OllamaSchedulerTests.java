@@ -0,0 +1,145 @@
+package com.dairy.backend.ai;
+
+import com.dairy.backend.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaSchedulerTests {
+
+    private static OllamaScheduler scheduler(int maxConcurrent, int maxQueued, int maxQueuedPerUser, int batchShare) {
+        return new OllamaScheduler(Runnable::run, maxConcurrent, maxQueued, maxQueuedPerUser, 1, batchShare, 5);
+    }
+
+    @Test
+    void admitsUpToMaxConcurrentThenQueues() {
+        OllamaScheduler scheduler = scheduler(2, 10, 5, 4);
+        CompletableFuture<OllamaScheduler.Permit> first = scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null);
+        CompletableFuture<OllamaScheduler.Permit> second = scheduler.acquire(2L, AiPriority.INTERACTIVE, 1, null);
+        CompletableFuture<OllamaScheduler.Permit> third = scheduler.acquire(3L, AiPriority.INTERACTIVE, 1, null);
+
+        assertTrue(first.isDone() && second.isDone());
+        assertFalse(third.isDone());
+        assertEquals(1, scheduler.getStats().queuedInteractive());
+
+        first.join().release();
+        first.join().release(); // idempotent: frees one slot, not two
+        assertTrue(third.isDone());
+        assertEquals(2, scheduler.getStats().running());
+    }
+
+    @Test
+    void rejectsBeyondPerUserAndTotalLimits() {
+        OllamaScheduler scheduler = scheduler(1, 3, 2, 4);
+        scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null);
+        scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null);
+        scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null);
+
+        TooManyRequestsException perUser = assertThrows(TooManyRequestsException.class,
+                () -> scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null));
+        assertEquals(5, perUser.getRetryAfterSeconds());
+
+        scheduler.acquire(2L, AiPriority.INTERACTIVE, 1, null);
+        assertThrows(TooManyRequestsException.class, () -> scheduler.acquire(3L, AiPriority.BATCH, 1, null));
+        assertEquals(2, scheduler.getStats().rejected());
+    }
+
+    @Test
+    void batchGetsItsShareUnderInteractiveLoad() {
+        OllamaScheduler scheduler = scheduler(1, 100, 5, 3);
+        OllamaScheduler.Permit held = scheduler.acquire(0L, AiPriority.INTERACTIVE, 1, null).join();
+        List<String> order = new ArrayList<>();
+        List<CompletableFuture<OllamaScheduler.Permit>> waiting = new ArrayList<>();
+        waiting.add(queue(scheduler, 100L, AiPriority.BATCH, "B1", order));
+        waiting.add(queue(scheduler, 101L, AiPriority.BATCH, "B2", order));
+        for (int i = 1; i <= 6; i++) {
+            waiting.add(queue(scheduler, (long) i, AiPriority.INTERACTIVE, "I" + i, order));
+        }
+
+        held.release();
+        for (int i = 0; i < waiting.size(); i++) {
+            // Each dispatched job finishes before the next one is picked
+            waiting.stream().filter(CompletableFuture::isDone).map(CompletableFuture::join)
+                    .forEach(OllamaScheduler.Permit::release);
+        }
+
+        // One of every three dispatches goes to batch while both queues are non-empty
+        assertEquals(List.of("I1", "I2", "B1", "I3", "I4", "B2", "I5", "I6"), order);
+        assertEquals(0, scheduler.getStats().running());
+    }
+
+    @Test
+    void cancellingWithdrawsFromTheQueueAndMovesOthersUp() {
+        OllamaScheduler scheduler = scheduler(1, 10, 5, 4);
+        OllamaScheduler.Permit held = scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null).join();
+        List<Integer> positions = new ArrayList<>();
+        CompletableFuture<OllamaScheduler.Permit> ahead = scheduler.acquire(2L, AiPriority.INTERACTIVE, 1, null);
+        CompletableFuture<OllamaScheduler.Permit> behind = scheduler.acquire(3L, AiPriority.INTERACTIVE, 1, positions::add);
+        assertEquals(List.of(2), positions);
+
+        ahead.cancel(false);
+        assertEquals(List.of(2, 1), positions);
+        assertEquals(1, scheduler.getStats().queuedInteractive());
+
+        held.release();
+        assertTrue(behind.isDone() && !behind.isCancelled());
+        assertEquals(1, scheduler.getStats().running());
+    }
+
+    @Test
+    void slotGrantedToACancelledJobIsHandedOn() throws Exception {
+        // Cancel races the release that dispatches the job; either way no slot may leak
+        for (int round = 0; round < 500; round++) {
+            OllamaScheduler scheduler = scheduler(1, 10, 5, 4);
+            OllamaScheduler.Permit held = scheduler.acquire(1L, AiPriority.INTERACTIVE, 1, null).join();
+            CompletableFuture<OllamaScheduler.Permit> doomed = scheduler.acquire(2L, AiPriority.INTERACTIVE, 1, null);
+            CompletableFuture<OllamaScheduler.Permit> next = scheduler.acquire(3L, AiPriority.INTERACTIVE, 1, null);
+
+            CyclicBarrier start = new CyclicBarrier(2);
+            CountDownLatch cancelled = new CountDownLatch(1);
+            Thread canceller = new Thread(() -> {
+                await(start);
+                doomed.cancel(false);
+                cancelled.countDown();
+            });
+            canceller.start();
+            await(start);
+            held.release();
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            canceller.join();
+
+            if (!doomed.isCancelled()) {
+                // The grant won the race; the caller owns the slot and gives it back
+                doomed.join().release();
+            }
+            assertTrue(next.isDone(), "round " + round + ": slot leaked");
+            next.join().release();
+            assertEquals(0, scheduler.getStats().running(), "round " + round);
+        }
+    }
+
+    private static CompletableFuture<OllamaScheduler.Permit> queue(OllamaScheduler scheduler, Long userId,
+                                                                   AiPriority priority, String name, List<String> order) {
+        CompletableFuture<OllamaScheduler.Permit> future = scheduler.acquire(userId, priority, 1, null);
+        future.thenRun(() -> order.add(name));
+        return future;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.dairy.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTests {
+
+    private final List<String> removed = new ArrayList<>();
+    private long now;
+
+    private BoundedCache<String, String> cache(long maxBytes) {
+        return new BoundedCache<>(maxBytes, Duration.ofSeconds(10), removed::add, () -> now);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOnceOverBudget() {
+        BoundedCache<String, String> cache = cache(100);
+        cache.put("a", "A", 25);
+        cache.put("b", "B", 25);
+        cache.put("c", "C", 25);
+        cache.put("d", "D", 25);
+        // Reading "a" makes "b" the eldest
+        assertEquals("A", cache.get("a"));
+
+        cache.put("e", "E", 25);
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("E", cache.get("e"));
+        assertEquals(List.of("b"), removed);
+        assertEquals(new BoundedCache.Stats(4, 100, 100, 1), cache.stats());
+    }
+
+    @Test
+    void replacingAKeyReplacesItsSize() {
+        BoundedCache<String, String> cache = cache(100);
+        cache.put("a", "A", 20);
+        cache.put("a", "AA", 10);
+
+        assertEquals("AA", cache.get("a"));
+        assertEquals(new BoundedCache.Stats(1, 10, 100, 0), cache.stats());
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    void rejectsValuesOverAQuarterOfTheBudget() {
+        BoundedCache<String, String> cache = cache(100);
+        assertTrue(cache.put("fits", "x", 25));
+        assertFalse(cache.put("huge", "y", 26));
+
+        assertNull(cache.get("huge"));
+        assertEquals("x", cache.get("fits"));
+    }
+
+    @Test
+    void expiredEntriesAreDroppedOnRead() {
+        BoundedCache<String, String> cache = cache(100);
+        cache.put("a", "A", 10);
+
+        now = 9_999;
+        assertEquals("A", cache.get("a"));
+        now = 10_000;
+        assertNull(cache.get("a"));
+
+        assertEquals(List.of("a"), removed);
+        assertEquals(new BoundedCache.Stats(0, 0, 100, 0), cache.stats());
+    }
+
+    @Test
+    void explicitRemoveDoesNotNotifyTheListener() {
+        BoundedCache<String, String> cache = cache(100);
+        cache.put("a", "A", 10);
+        cache.remove("a");
+        cache.remove("missing");
+
+        assertNull(cache.get("a"));
+        assertTrue(removed.isEmpty());
+        assertEquals(0, cache.stats().bytes());
+    }
+}
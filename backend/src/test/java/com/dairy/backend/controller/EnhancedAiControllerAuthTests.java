@@ -0,0 +1,60 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.Role;
+import com.dairy.backend.model.User;
+import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.UserService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The AI diagnostics endpoints expose every user's sessions and usage, so only admins may read them
+@SpringBootTest
+@AutoConfigureMockMvc
+class EnhancedAiControllerAuthTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/ai/cache/stats", "/api/ai/scheduler/stats", "/api/ai/websocket/outbound"})
+    void regularUserIsForbidden(String path) throws Exception {
+        mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer(Role.USER)))
+                .andExpect(status().isForbidden());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/ai/cache/stats", "/api/ai/scheduler/stats", "/api/ai/websocket/outbound"})
+    void adminCanRead(String path) throws Exception {
+        mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer(Role.ADMIN)))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(Role role) {
+        String username = "u" + UUID.randomUUID().toString().substring(0, 8);
+        User user = userService.signup(new SignupRequest(username, "secret-password"));
+        user.setRole(role);
+        userRepository.save(user);
+        return "Bearer " + jwtUtil.generateToken(user);
+    }
+}
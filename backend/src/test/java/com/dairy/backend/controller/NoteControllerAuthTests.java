@@ -0,0 +1,107 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.Role;
+import com.dairy.backend.model.User;
+import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Calls note endpoints with a real signed token, through the security filter and JwtPrincipal resolution
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerAuthTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User user;
+    private String bearer;
+
+    @BeforeEach
+    void signUp() {
+        String username = "u" + UUID.randomUUID().toString().substring(0, 8);
+        user = userService.signup(new SignupRequest(username, "secret-password"));
+        bearer = "Bearer " + jwtUtil.generateToken(user);
+    }
+
+    @Test
+    void createsAndListsNotesWithToken() throws Exception {
+        mockMvc.perform(post("/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"First\",\"content\":\"hello\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].title").value("First"));
+    }
+
+    @Test
+    void rejectsRequestWithoutToken() throws Exception {
+        mockMvc.perform(get("/api/notes"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    // The first request puts the token's claims in the verified-token cache; revocation must still apply to hits
+    @Test
+    void revokedTokenIsRejectedWhenItsClaimsAreCached() throws Exception {
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().is4xxClientError());
+    }
+
+    // Logging in again straight after logout-all lands in the cutoff's second; that token must work
+    @Test
+    void loginRightAfterLogoutAllIsAccepted() throws Exception {
+        mockMvc.perform(post("/api/auth/logout-all").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(user)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void cacheStatsAreAdminOnly() throws Exception {
+        mockMvc.perform(get("/api/notes/cache/stats").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isForbidden());
+
+        user.setRole(Role.ADMIN);
+        userRepository.save(user);
+        mockMvc.perform(get("/api/notes/cache/stats")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.maxBytes").isNumber());
+    }
+}
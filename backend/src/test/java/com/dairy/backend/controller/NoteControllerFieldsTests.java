@@ -0,0 +1,132 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.User;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sparse fieldsets (?fields=): which columns are read, which names are accepted, and the list ETag per selection
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerFieldsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String bearer;
+    private Long noteId;
+
+    @BeforeEach
+    void signUpAndCreate() throws Exception {
+        User user = userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+        bearer = "Bearer " + jwtUtil.generateToken(user);
+        String response = mockMvc.perform(post("/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("title", "Trip", "content", "Packed the bags."))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        noteId = objectMapper.readTree(response).get("data").get("id").asLong();
+    }
+
+    @Test
+    void summaryFieldsNeverReadTheContentColumn() throws Exception {
+        // A body the converter can't inflate: any query that loads content fails
+        jdbcTemplate.update("UPDATE notes SET content = ? WHERE id = ?", "\u0001z1:not base64!", noteId);
+
+        for (String path : List.of("/api/notes?fields=id,title,snippet,createdAt,updatedAt",
+                "/api/notes?fields=id,title&limit=5")) {
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(path.contains("limit") ? "$.data.items[0].title" : "$.data[0].title").value("Trip"))
+                    .andExpect(jsonPath(path.contains("limit") ? "$.data.items[0].content" : "$.data[0].content").doesNotExist());
+        }
+        mockMvc.perform(get("/api/notes?fields=id,content").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(result -> assertNotEquals(200, result.getResponse().getStatus()));
+    }
+
+    @Test
+    void returnsOnlyTheRequestedFields() throws Exception {
+        mockMvc.perform(get("/api/notes?fields=title,id").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].*", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].id").value(noteId))
+                .andExpect(jsonPath("$.data[0].title").value("Trip"));
+        mockMvc.perform(get("/api/notes?fields=id,content").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].content").value("Packed the bags."));
+    }
+
+    @Test
+    void unknownOrEmptyFieldsAreRejected() throws Exception {
+        mockMvc.perform(get("/api/notes?fields=id,password").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field: password"));
+        mockMvc.perform(get("/api/notes?fields=id,user&limit=5").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes?fields=,").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one field is required"));
+    }
+
+    @Test
+    void eachFieldSetHasItsOwnETag() throws Exception {
+        List<String> queries = List.of("", "?fields=id", "?fields=id,title", "?fields=id,content",
+                "?fields=id,title&limit=5");
+        Set<String> etags = new HashSet<>();
+        for (String query : queries) {
+            String etag = mockMvc.perform(get("/api/notes" + query).header(HttpHeaders.AUTHORIZATION, bearer))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            etags.add(etag);
+
+            // Each tag revalidates its own representation only
+            mockMvc.perform(get("/api/notes" + query).header(HttpHeaders.AUTHORIZATION, bearer)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+        assertEquals(queries.size(), etags.size());
+
+        String titleOnly = mockMvc.perform(get("/api/notes?fields=id,title").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/notes?fields=id,content").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, titleOnly))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,129 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.User;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Keyset pagination (?limit=&cursor=) over full notes and the summary projection
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerPagingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long userId;
+    private String bearer;
+
+    @BeforeEach
+    void signUp() {
+        User user = userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+        userId = user.getId();
+        bearer = "Bearer " + jwtUtil.generateToken(user);
+    }
+
+    // 11 notes, three groups sharing an updatedAt that only the id tells apart, walked 3 at a time
+    @ParameterizedTest
+    @ValueSource(strings = {"", "id,title"})
+    void walksEveryPageWithoutRepeatsOrGaps(String fields) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            ids.add(create("Note " + i));
+        }
+        LocalDateTime base = LocalDateTime.of(2026, 5, 1, 9, 0);
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("UPDATE notes SET updated_at = ? WHERE id = ?",
+                    Timestamp.valueOf(base.plusMinutes(i % 3)), ids.get(i));
+        }
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/notes").param("limit", "3")
+                    .header(HttpHeaders.AUTHORIZATION, bearer);
+            if (!fields.isEmpty()) {
+                request.param("fields", fields);
+            }
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(response).get("data");
+            page.get("items").forEach(item -> walked.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertEquals(cursor != null, page.get("hasMore").asBoolean());
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(4, pages);
+        assertEquals(jdbcTemplate.queryForList(
+                "SELECT id FROM notes WHERE user_id = ? ORDER BY updated_at DESC, id DESC", Long.class, userId), walked);
+    }
+
+    // Not base64, "no-separator", and "yesterday|42"
+    @ParameterizedTest
+    @ValueSource(strings = {"not-base64!", "bm8tc2VwYXJhdG9y", "eWVzdGVyZGF5fDQy"})
+    void malformedCursorIsABadRequest(String cursor) throws Exception {
+        create("Note");
+
+        mockMvc.perform(get("/api/notes").param("limit", "3").param("cursor", cursor)
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+        mockMvc.perform(get("/api/notes").param("limit", "3").param("fields", "id").param("cursor", cursor)
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long create(String title) throws Exception {
+        String response = mockMvc.perform(post("/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("title", title, "content", "body"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("data").get("id").asLong();
+    }
+}
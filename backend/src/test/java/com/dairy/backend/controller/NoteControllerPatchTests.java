@@ -0,0 +1,153 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.User;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PATCH /api/notes/{id}: text edits against a base version, through the controller's status mapping
+@SpringBootTest(properties = "notes.compression.threshold-bytes=512")
+@AutoConfigureMockMvc
+class NoteControllerPatchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String bearer;
+
+    @BeforeEach
+    void signUp() {
+        User user = userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+        bearer = "Bearer " + jwtUtil.generateToken(user);
+    }
+
+    @Test
+    void staleBaseVersionConflicts() throws Exception {
+        JsonNode note = create("Title", "hello world");
+        long version = note.get("version").asLong();
+        patchNote(note.get("id").asLong(), version, 0, 5, "howdy").andExpect(status().isOk());
+
+        patchNote(note.get("id").asLong(), version, 0, 5, "hi")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+        assertEquals("howdy world", content(note.get("id").asLong()));
+    }
+
+    @Test
+    void editOutsideTheContentIsRejected() throws Exception {
+        JsonNode note = create("Title", "short");
+
+        patchNote(note.get("id").asLong(), note.get("version").asLong(), 3, 10, "x")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        patchNote(note.get("id").asLong(), note.get("version").asLong(), 6, 0, "x")
+                .andExpect(status().isBadRequest());
+        assertEquals("short", content(note.get("id").asLong()));
+    }
+
+    @Test
+    void patchOfCompressedContentStoresItCompressed() throws Exception {
+        String body = "A long entry about the day. ".repeat(60);
+        JsonNode note = create("Long", body);
+        long id = note.get("id").asLong();
+        assertTrue(storedContent(id).startsWith("\u0001z1:"));
+
+        patchNote(id, note.get("version").asLong(), body.length(), 0, "The end.")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.contentLength").value(body.length() + 8));
+
+        // updateOwned binds the content through the converter, so the row stays compressed and readable
+        assertTrue(storedContent(id).startsWith("\u0001z1:"));
+        assertEquals(body + "The end.", content(id));
+    }
+
+    @Test
+    void patchBumpsTheVersionInTheETag() throws Exception {
+        JsonNode note = create("Title", "first");
+        long id = note.get("id").asLong();
+        long version = note.get("version").asLong();
+        String before = mockMvc.perform(get("/api/notes/" + id).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String after = "\"n" + id + "-v" + (version + 1) + "\"";
+        patchNote(id, version, 5, 0, " second")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, after))
+                .andExpect(jsonPath("$.data.version").value(version + 1));
+
+        mockMvc.perform(get("/api/notes/" + id).header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, after));
+        mockMvc.perform(get("/api/notes/" + id).header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, after))
+                .andExpect(status().isNotModified());
+    }
+
+    private JsonNode create(String title, String content) throws Exception {
+        String response = mockMvc.perform(post("/api/notes")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("title", title, "content", content))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("data");
+    }
+
+    private ResultActions patchNote(long id, long baseVersion, int offset, int deleteCount, String insert)
+            throws Exception {
+        Map<String, Object> edit = Map.of("offset", offset, "deleteCount", deleteCount, "insert", insert);
+        return mockMvc.perform(patch("/api/notes/" + id)
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("baseVersion", baseVersion, "edits", List.of(edit)))));
+    }
+
+    private String content(long id) throws Exception {
+        String response = mockMvc.perform(get("/api/notes/" + id).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("data").get("content").asText();
+    }
+
+    private String storedContent(long id) {
+        return jdbcTemplate.queryForObject("SELECT content FROM notes WHERE id = ?", String.class, id);
+    }
+}
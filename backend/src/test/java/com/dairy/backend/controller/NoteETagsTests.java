@@ -0,0 +1,36 @@
+package com.dairy.backend.controller;
+
+import com.dairy.backend.dto.NoteListStamp;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteETagsTests {
+
+    private static final NoteListStamp STAMP = new NoteListStamp(3L, LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+
+    @Test
+    void variantIsASixtyFourBitDigestPrefix() {
+        String digest = NoteETags.variantDigest("page=0&size=20");
+        assertTrue(digest.matches("[0-9a-f]{16}"), digest);
+        assertTrue(NoteETags.forList(1L, STAMP, "page=0&size=20").endsWith("-" + digest + "\""));
+    }
+
+    @Test
+    void parameterOrderDoesNotChangeTheTag() {
+        assertEquals(NoteETags.forList(1L, STAMP, "page=0&size=20"), NoteETags.forList(1L, STAMP, "size=20&page=0"));
+    }
+
+    @Test
+    void differentQueriesGetDifferentTags() {
+        // "Aa" and "BB" share a String.hashCode()
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(NoteETags.forList(1L, STAMP, "q=Aa"), NoteETags.forList(1L, STAMP, "q=BB"));
+        assertNotEquals(NoteETags.forList(1L, STAMP, "page=0"), NoteETags.forList(1L, STAMP, "page=1"));
+        assertNotEquals(NoteETags.forList(1L, STAMP, null), NoteETags.forList(1L, STAMP, "page=0"));
+    }
+}
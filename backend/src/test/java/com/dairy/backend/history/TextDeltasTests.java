@@ -0,0 +1,108 @@
+package com.dairy.backend.history;
+
+import com.dairy.backend.dto.TextEdit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextDeltasTests {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "'', ''",
+            "'', 'new note'",
+            "'whole note', ''",
+            "'Dear diary', 'Dear diary, today was long'",   // append only (common prefix)
+            "'was long', 'Today was long'",                 // prepend only (common suffix)
+            "'I went to the park', 'I went to the market'",
+            "'aaaa', 'aa'",
+            "'aa', 'aaaa'",
+            "'abcabc', 'abc'",
+            "'same', 'same'",
+    })
+    void roundTrips(String before, String after) {
+        assertRoundTrip(before, after);
+    }
+
+    @Test
+    void editIsLimitedToTheChangedRange() {
+        List<TextEdit> appended = TextDeltas.diff("Dear diary", "Dear diary, hi");
+        assertEquals(List.of(new TextEdit(10, 0, ", hi")), appended);
+
+        List<TextEdit> prepended = TextDeltas.diff("was long", "Today was long");
+        assertEquals(List.of(new TextEdit(0, 0, "Today ")), prepended);
+
+        assertTrue(TextDeltas.diff("same", "same").isEmpty());
+        assertEquals("", TextDeltas.encode(List.of()));
+    }
+
+    @Test
+    void roundTripsUnicode() {
+        assertRoundTrip("Ünïcödé 日記", "Ünïcödé 日記 ✓");
+        assertRoundTrip("日記を書く", "日記を読む");
+        assertRoundTrip("mood: 😀", "mood: 😁");
+        assertRoundTrip("😀 start", "😁 start");
+        assertRoundTrip("🙂🙂🙂", "🙂🙂");
+        assertRoundTrip("a👨‍👩‍👧b", "a👨‍👩‍👦b");
+    }
+
+    @Test
+    void neverSplitsASurrogatePair() {
+        // U+1F600 and U+1F601 share their high surrogate, so a char-wise prefix would end mid-character
+        for (String[] pair : new String[][]{{"mood: 😀", "mood: 😁"}, {"😀 start", "😁 start"}, {"x😀y", "x😁y"}}) {
+            TextEdit edit = TextDeltas.diff(pair[0], pair[1]).get(0);
+            // A lone surrogate is stored as '?' by the database
+            assertFalse(edit.getInsert().codePoints().anyMatch(c -> Character.isSurrogate((char) c)),
+                    "insert splits a character: " + edit);
+            assertEquals("😁", edit.getInsert());
+        }
+    }
+
+    @Test
+    void encodedFormSurvivesSeparatorsInTheText() {
+        List<TextEdit> edits = List.of(new TextEdit(0, 3, "1,2,3:4"), new TextEdit(5, 0, ""), new TextEdit(2, 1, ":,"));
+        assertEquals(edits, TextDeltas.decode(TextDeltas.encode(edits)));
+    }
+
+    @Test
+    void randomEditsRoundTrip() {
+        Random random = new Random(7);
+        String alphabet = "abc ,:\n日😀";
+        String text = "";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder next = new StringBuilder(text);
+            int start = text.isEmpty() ? 0 : random.nextInt(text.length() + 1);
+            int end = Math.min(text.length(), start + random.nextInt(4));
+            next.replace(start, end, "");
+            int inserted = random.nextInt(4);
+            for (int c = 0; c < inserted; c++) {
+                int at = random.nextInt(alphabet.length() - 1);
+                // Keep the surrogate pair of 😀 together
+                next.insert(start, Character.isSurrogate(alphabet.charAt(at)) ? "😀" : String.valueOf(alphabet.charAt(at)));
+            }
+            String after = next.toString();
+            assertRoundTrip(text, after);
+            text = after;
+        }
+    }
+
+    @Test
+    void rejectsEditsOutsideTheText() {
+        assertThrows(IllegalArgumentException.class, () -> TextDeltas.apply("abc", List.of(new TextEdit(2, 5, ""))));
+        assertThrows(IllegalArgumentException.class, () -> TextDeltas.apply("abc", List.of(new TextEdit(-1, 0, "x"))));
+    }
+
+    private static void assertRoundTrip(String before, String after) {
+        List<TextEdit> edits = TextDeltas.diff(before, after);
+        assertEquals(after, TextDeltas.apply(before, edits));
+        assertEquals(after, TextDeltas.apply(before, TextDeltas.decode(TextDeltas.encode(edits))));
+    }
+}
@@ -0,0 +1,133 @@
+package com.dairy.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextConverterTests {
+
+    private static final String[] WORDS = ("today i went to the market with my sister and we bought fresh bread "
+            + "coffee apples it was raining again so the walk home took longer than usual felt tired after work "
+            + "meeting about the project deadline tomorrow need to call mom remember dentist appointment on friday "
+            + "finished reading chapter seven of the book started running again three kilometres slow but steady "
+            + "dinner with friends at the new place downtown pasta was great conversation even better").split(" ");
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void storesSmallBodiesUntouched() {
+        String text = diaryText(CompressedTextConverter.DEFAULT_THRESHOLD_BYTES - 1, 1);
+        assertEquals(text, converter.convertToDatabaseColumn(text));
+    }
+
+    @Test
+    void compressesLargeBodiesAndReadsThemBack() {
+        String text = diaryText(16 * 1024, 2);
+        String stored = converter.convertToDatabaseColumn(text);
+        assertTrue(stored.length() < text.length());
+        assertEquals('\u0001', stored.charAt(0));
+        assertEquals(text, converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    void roundTripsUnicode() {
+        String text = "Ünïcödé 日記 🙂 ".repeat(400);
+        assertEquals(text, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text)));
+    }
+
+    @Test
+    void keepsIncompressibleBodiesPlain() {
+        Random random = new Random(3);
+        StringBuilder noise = new StringBuilder();
+        while (noise.length() < 8192) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        String text = noise.toString();
+        assertEquals(text, converter.convertToDatabaseColumn(text));
+    }
+
+    @Test
+    void escapesTextStartingWithTheMarker() {
+        String text = "\u0001z1:not really compressed";
+        String stored = converter.convertToDatabaseColumn(text);
+        assertFalse(stored.equals(text));
+        assertEquals(text, converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    void readsLegacyPlainRowsAndNulls() {
+        assertEquals("written before compression", converter.convertToEntityAttribute("written before compression"));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void honoursConfiguredThreshold() {
+        String text = diaryText(1024, 4);
+        assertEquals(text, new CompressedTextConverter(4096).convertToDatabaseColumn(text));
+        assertTrue(new CompressedTextConverter(512).convertToDatabaseColumn(text).length() < text.length());
+    }
+
+    /**
+     * Micro-benchmark behind the default threshold: stored size and median
+     * encode/decode time per body size, on seeded diary-like text. Timings are
+     * printed only (they depend on the machine); the size ratios the default
+     * rests on are asserted.
+     */
+    @Test
+    void breakEven() {
+        CompressedTextConverter always = new CompressedTextConverter(0);
+        System.out.println("  bytes   stored  ratio  encode(us)  decode(us)");
+        for (int size : new int[]{256, 512, 1024, 2048, 4096, 8192, 16384, 65536}) {
+            String text = diaryText(size, 42);
+            int iterations = Math.max(50, 1_000_000 / size);
+            long[] encode = new long[iterations];
+            long[] decode = new long[iterations];
+            String stored = null;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                stored = always.convertToDatabaseColumn(text);
+                long encoded = System.nanoTime();
+                always.convertToEntityAttribute(stored);
+                encode[i] = encoded - start;
+                decode[i] = System.nanoTime() - encoded;
+            }
+            double ratio = (double) stored.length() / size;
+            System.out.printf("%7d  %7d  %4.0f%%  %10.1f  %10.1f%n", size, stored.length(), 100 * ratio,
+                    median(encode) / 1000.0, median(decode) / 1000.0);
+
+            if (size < 1024) {
+                assertTrue(ratio > 0.6, "small bodies should barely shrink, got " + ratio + " at " + size);
+            } else if (size >= CompressedTextConverter.DEFAULT_THRESHOLD_BYTES) {
+                assertTrue(ratio < 0.55, "bodies at the threshold should halve, got " + ratio + " at " + size);
+            }
+        }
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    static String diaryText(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            int sentence = 6 + random.nextInt(12);
+            for (int i = 0; i < sentence; i++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(i + 1 < sentence ? " " : ". ");
+            }
+            if (random.nextInt(5) == 0) {
+                text.append("\n\n");
+            }
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,92 @@
+package com.dairy.backend.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstOfCapacityThenRefillsOneIntervalAtATime() {
+        TokenBucket bucket = new TokenBucket(0);
+        assertEquals(RateLimitDecision.allowed(2), bucket.tryAcquire(0, 3, SECOND));
+        assertEquals(RateLimitDecision.allowed(1), bucket.tryAcquire(0, 3, SECOND));
+        assertEquals(RateLimitDecision.allowed(0), bucket.tryAcquire(0, 3, SECOND));
+
+        RateLimitDecision denied = bucket.tryAcquire(0, 3, SECOND);
+        assertFalse(denied.allowed());
+        assertEquals(1, denied.retryAfterSeconds());
+
+        // A refusal takes nothing, so one interval later exactly one request fits
+        assertTrue(bucket.tryAcquire(SECOND, 3, SECOND).allowed());
+        assertFalse(bucket.tryAcquire(SECOND, 3, SECOND).allowed());
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        TokenBucket bucket = new TokenBucket(0);
+        long interval = TimeUnit.SECONDS.toNanos(10);
+        bucket.tryAcquire(0, 1, interval);
+        assertEquals(10, bucket.tryAcquire(0, 1, interval).retryAfterSeconds());
+        assertEquals(1, bucket.tryAcquire(interval - 1, 1, interval).retryAfterSeconds());
+    }
+
+    @Test
+    void idleTimeRefillsUpToCapacityOnly() {
+        TokenBucket bucket = new TokenBucket(0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(0, 3, SECOND);
+        }
+        long later = 100 * SECOND;
+        assertEquals(RateLimitDecision.allowed(2), bucket.tryAcquire(later, 3, SECOND));
+        // Full again one interval after the last take, idle once a further idle period has passed
+        assertFalse(bucket.isIdle(later + 2 * SECOND, SECOND));
+        assertTrue(bucket.isIdle(later + 3 * SECOND, SECOND));
+        assertFalse(bucket.isIdle(later, SECOND));
+    }
+
+    @Test
+    void budgetChangesApplyToExistingBuckets() {
+        TokenBucket bucket = new TokenBucket(0);
+        bucket.tryAcquire(0, 2, SECOND);
+        bucket.tryAcquire(0, 2, SECOND);
+        assertFalse(bucket.tryAcquire(0, 2, SECOND).allowed());
+        assertEquals(RateLimitDecision.allowed(2), bucket.tryAcquire(0, 5, SECOND));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(0);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryAcquire(0, 100, SECOND).allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(100, allowed.get());
+    }
+}
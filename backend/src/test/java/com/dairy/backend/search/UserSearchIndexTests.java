@@ -0,0 +1,85 @@
+package com.dairy.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserSearchIndexTests {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2024, 3, 2, 9, 0);
+
+    @Test
+    void ranksByTermFrequencyAndRarity() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(1, T1, Map.of("coffee", 3, "morning", 1));
+        index.put(2, T1, Map.of("coffee", 1, "morning", 1, "walk", 1));
+        index.put(3, T1, Map.of("walk", 2));
+
+        List<SearchHit> hits = index.search(List.of("coffee"), 10);
+        assertEquals(List.of(1L, 2L), hits.stream().map(SearchHit::noteId).toList());
+
+        // "walk" is rarer than "morning", so the note with both query terms wins
+        assertEquals(2L, index.search(List.of("morning", "walk"), 1).get(0).noteId());
+    }
+
+    @Test
+    void replaceAndRemoveDropOldPostings() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(1, T1, Map.of("draft", 1));
+        index.put(1, T2, Map.of("final", 1));
+        assertTrue(index.search(List.of("draft"), 10).isEmpty());
+        assertEquals(1, index.search(List.of("final"), 10).size());
+
+        index.remove(1);
+        assertEquals(0, index.size());
+        assertTrue(index.search(List.of("final"), 10).isEmpty());
+    }
+
+    @Test
+    void filterIsAppliedBeforeTheLimit() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(1, T1, Map.of("tea", 5));
+        index.put(2, T1, Map.of("tea", 1));
+        List<SearchHit> hits = index.search(List.of("tea"), 1, Set.of(2L)::contains);
+        assertEquals(2L, hits.get(0).noteId());
+    }
+
+    @Test
+    void stampFollowsTheIndexedState() {
+        UserSearchIndex index = new UserSearchIndex();
+        assertEquals(UserSearchIndex.Stamp.of(0, null), index.stamp());
+        index.put(1, T1, Map.of("a", 1));
+        index.put(2, T2, Map.of("b", 1));
+        assertEquals(UserSearchIndex.Stamp.of(2, T2), index.stamp());
+        index.remove(2);
+        assertEquals(UserSearchIndex.Stamp.of(1, T1), index.stamp());
+    }
+
+    @Test
+    void persistsAndReloadsWithItsStamp() throws IOException {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put(1, T1, Map.of("market", 2, "bread", 1));
+        index.put(2, T2.withNano(123_456_789), Map.of("market", 1));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(index.stamp(), UserSearchIndex.readStamp(in));
+        UserSearchIndex loaded = UserSearchIndex.readFrom(in);
+        assertEquals(index.stamp(), loaded.stamp());
+        assertEquals(index.search(List.of("market"), 10), loaded.search(List.of("market"), 10));
+    }
+}
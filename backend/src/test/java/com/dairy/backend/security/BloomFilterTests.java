@@ -0,0 +1,75 @@
+package com.dairy.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void neverForgetsAnAddedKey() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = UUID.randomUUID().toString();
+            keys.add(key);
+            filter.add(key);
+        }
+        for (String key : keys) {
+            assertTrue(filter.mightContain(key), key);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("live-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        assertFalse(filter.mightContain(""));
+        assertFalse(filter.mightContain("token"));
+        filter.add("token");
+        assertTrue(filter.mightContain("token"));
+    }
+
+    @Test
+    void concurrentAddsLoseNoBits() throws Exception {
+        BloomFilter filter = new BloomFilter(80_000, 0.01);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.add(thread + ":" + i);
+                }
+            }));
+        }
+        CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain(t + ":" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.model.Role;
+import com.dairy.backend.model.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private static JwtUtil jwtUtil(long expiryMs, int cacheEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiry", expiryMs);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", cacheEntries);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setRole(Role.USER);
+        return user;
+    }
+
+    @Test
+    void parsesThePrincipalFromClaims() {
+        JwtUtil jwtUtil = jwtUtil(60_000, 100);
+        String token = jwtUtil.generateToken(user(7));
+
+        JwtPrincipal first = jwtUtil.parsePrincipal(token);
+        JwtPrincipal cached = jwtUtil.parsePrincipal(token);
+
+        assertEquals(7L, first.id());
+        assertEquals("user7", first.username());
+        assertEquals(Role.USER, first.role());
+        assertEquals(first, cached);
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        JwtUtil jwtUtil = jwtUtil(-1_000, 100);
+        String token = jwtUtil.generateToken(user(7));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parsePrincipal(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parsePrincipal(token));
+        assertFalse(jwtUtil.isTokenValid(token));
+    }
+
+    @Test
+    void tokensSignedWithAnotherKeyAreRejected() {
+        String forged = Jwts.builder()
+                .setSubject("user7")
+                .claim("userId", 7L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("anotherSecretKey12345678901234567890123".getBytes()))
+                .compact();
+
+        assertThrows(SignatureException.class, () -> jwtUtil(60_000, 100).parsePrincipal(forged));
+    }
+
+    /**
+     * Per-request auth cost, printed only (timings depend on the machine).
+     * "before" is what the filter used to do: three parses of the same token
+     * (extractUsername, then validateToken's extractUsername and expiry
+     * check), each building the key and parser again. The account lookup it
+     * also did is left out. "after" is one parsePrincipal, first with the
+     * verified-token cache off (one HMAC check) and then warm.
+     */
+    @Test
+    void authOverhead() {
+        JwtUtil uncached = jwtUtil(3_600_000, 0);
+        JwtUtil cached = jwtUtil(3_600_000, 100);
+        String token = cached.generateToken(user(7));
+        int iterations = 5_000;
+
+        long[] before = new long[iterations];
+        long[] verifyOnce = new long[iterations];
+        long[] cacheHit = new long[iterations];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                for (int parse = 0; parse < 3; parse++) {
+                    Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                            .parseClaimsJws(token).getBody();
+                }
+                long parsedThrice = System.nanoTime();
+                uncached.parsePrincipal(token);
+                long parsedOnce = System.nanoTime();
+                cached.parsePrincipal(token);
+                long hit = System.nanoTime();
+                before[i] = parsedThrice - start;
+                verifyOnce[i] = parsedOnce - parsedThrice;
+                cacheHit[i] = hit - parsedOnce;
+            }
+        }
+        System.out.printf("auth per request (median us): before %.1f, verify once %.1f, cache hit %.1f%n",
+                median(before) / 1000.0, median(verifyOnce) / 1000.0, median(cacheHit) / 1000.0);
+
+        assertTrue(median(cacheHit) < median(verifyOnce), "a cache hit should skip the HMAC check");
+        assertTrue(median(verifyOnce) < median(before), "one verification should beat three");
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
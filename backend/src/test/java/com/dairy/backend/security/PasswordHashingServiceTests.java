@@ -0,0 +1,85 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.controller.AuthController;
+import com.dairy.backend.dto.LoginRequest;
+import com.dairy.backend.exception.TooManyRequestsException;
+import com.dairy.backend.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PasswordHashingServiceTests {
+
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final PasswordHashingService hashing = new PasswordHashingService(1, 1, 3);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        hashing.shutdown();
+    }
+
+    // One thread busy and one hash queued: the next request is shed instead of waiting
+    @Test
+    void shedsWorkBeyondThePoolAndQueue() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(encoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", encoder);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hashing.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hashing.matches("b", "hash"));
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashing, "executor");
+        while (executor.getQueue().isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        TooManyRequestsException shed = assertThrows(TooManyRequestsException.class, () -> hashing.matches("c", "hash"));
+        assertEquals(3, shed.getRetryAfterSeconds());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shedLoginIsA429WithRetryAfter() throws Exception {
+        UserService userService = mock(UserService.class);
+        when(userService.login(any(LoginRequest.class))).thenThrow(new TooManyRequestsException("busy", 3));
+        AuthController controller = new AuthController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"password\":\"secret-password\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+}
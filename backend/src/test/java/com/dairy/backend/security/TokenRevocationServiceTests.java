@@ -0,0 +1,79 @@
+package com.dairy.backend.security;
+
+import com.dairy.backend.model.Role;
+import com.dairy.backend.model.UserTokenCutoff;
+import com.dairy.backend.repository.RevokedTokenRepository;
+import com.dairy.backend.repository.UserTokenCutoffRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TokenRevocationServiceTests {
+
+    private final UserTokenCutoffRepository cutoffRepository = mock(UserTokenCutoffRepository.class);
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenRevocationService();
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(service, "cutoffRepository", cutoffRepository);
+        ReflectionTestUtils.setField(service, "tokenLifetimeMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "expectedEntries", 100);
+        service.load();
+    }
+
+    private static JwtPrincipal issuedAt(Instant issuedAt) {
+        return new JwtPrincipal(7L, "alice", Role.USER, UUID.randomUUID().toString(), issuedAt,
+                issuedAt == null ? null : issuedAt.plus(1, ChronoUnit.HOURS));
+    }
+
+    private Instant revokeAll() {
+        service.revokeAll(7L);
+        ArgumentCaptor<UserTokenCutoff> saved = ArgumentCaptor.forClass(UserTokenCutoff.class);
+        verify(cutoffRepository).save(saved.capture());
+        return saved.getValue().getRevokedBefore();
+    }
+
+    @Test
+    void tokenIssuedInTheSameSecondAsLogoutAllIsAccepted() {
+        Instant cutoff = revokeAll();
+
+        // iat of a login straight after logout-all: this second, truncated like every JWT iat
+        Instant iat = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertEquals(cutoff, cutoff.truncatedTo(ChronoUnit.SECONDS));
+        assertFalse(service.isRevoked(issuedAt(iat)));
+        assertFalse(service.isRevoked(issuedAt(cutoff)));
+    }
+
+    @Test
+    void tokensIssuedInEarlierSecondsAreRevoked() {
+        Instant cutoff = revokeAll();
+
+        assertTrue(service.isRevoked(issuedAt(cutoff.minusSeconds(1))));
+        assertTrue(service.isRevoked(issuedAt(cutoff.minus(1, ChronoUnit.HOURS))));
+        // Without iat there is no way to tell, so the token is treated as old
+        assertTrue(service.isRevoked(issuedAt(null)));
+    }
+
+    @Test
+    void cutoffOnlyAppliesToItsUser() {
+        revokeAll();
+        JwtPrincipal otherUser = new JwtPrincipal(8L, "bob", Role.USER, null,
+                Instant.now().minus(1, ChronoUnit.HOURS), null);
+
+        assertFalse(service.isRevoked(otherUser));
+    }
+}
@@ -0,0 +1,79 @@
+package com.dairy.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VerifiedTokenCacheTests {
+
+    private static Claims expiringIn(long millis) {
+        return Jwts.claims().setSubject("alice").setExpiration(new Date(System.currentTimeMillis() + millis));
+    }
+
+    @Test
+    void servesVerifiedClaimsUntilExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Claims claims = expiringIn(60_000);
+        cache.put("token-a", claims);
+
+        assertSame(claims, cache.get("token-a"));
+        assertSame(claims, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+    }
+
+    @Test
+    void neverServesAnExpiredToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("expired", expiringIn(-1));
+        cache.put("no-expiry", Jwts.claims().setSubject("alice"));
+
+        assertNull(cache.get("expired"));
+        // Without an expiry there is nothing to bound the entry by, so it is never cached
+        assertNull(cache.get("no-expiry"));
+    }
+
+    @Test
+    void dropsExpiredEntriesFirstWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(3);
+        Claims a = expiringIn(60_000);
+        Claims b = expiringIn(60_000);
+        cache.put("a", a);
+        cache.put("b", b);
+        cache.put("stale", expiringIn(-1));
+
+        Claims c = expiringIn(60_000);
+        cache.put("c", c);
+
+        assertSame(a, cache.get("a"));
+        assertSame(b, cache.get("b"));
+        assertSame(c, cache.get("c"));
+    }
+
+    @Test
+    void clearsWhenFullOfLiveEntries() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(3);
+        cache.put("a", expiringIn(60_000));
+        cache.put("b", expiringIn(60_000));
+        cache.put("c", expiringIn(60_000));
+
+        Claims d = expiringIn(60_000);
+        cache.put("d", d);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertSame(d, cache.get("d"));
+    }
+
+    @Test
+    void zeroEntriesDisablesTheCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0);
+        cache.put("a", expiringIn(60_000));
+        assertNull(cache.get("a"));
+    }
+}
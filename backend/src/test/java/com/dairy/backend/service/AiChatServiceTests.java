@@ -0,0 +1,68 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.ai.AiResponseCache;
+import com.dairy.backend.ai.OllamaScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiChatServiceTests {
+
+    private final OllamaChatModel chatModel = mock(OllamaChatModel.class);
+    private final AiResponseCache cache = new AiResponseCache();
+
+    private AiChatService service(double defaultTemperature) {
+        when(chatModel.getDefaultOptions()).thenReturn(OllamaOptions.builder().model("test-model").build());
+        when(chatModel.call(any(Prompt.class)))
+                .thenReturn(new ChatResponse(List.of(new Generation(new AssistantMessage("answer")))));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        OllamaScheduler scheduler = new OllamaScheduler(Runnable::run, 2, 10, 5, 1, 4, 5);
+        return new AiChatService(chatModel, new PromptTemplate("Q: {question}"), new PromptTemplate("Write: {question}"),
+                scheduler, cache, defaultTemperature, 0.7);
+    }
+
+    @Test
+    void cachedAnswersAreNotSharedBetweenUsers() {
+        AiChatService service = service(0.0);
+        Map<String, Object> variables = Map.of("question", "What did I write yesterday?");
+
+        assertEquals("answer", service.generateResponseAsync(1L, "default", variables).join());
+        assertEquals("answer", service.generateResponseAsync(1L, "default", variables).join());
+        assertEquals("answer", service.generateResponseAsync(2L, "default", variables).join());
+
+        verify(chatModel, times(2)).call(any(Prompt.class));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(2, cache.getStats().misses());
+    }
+
+    @Test
+    void templatesAboveZeroBypassTheCache() {
+        AiChatService service = service(0.7);
+        Map<String, Object> variables = Map.of("question", "Tell me something");
+
+        service.generateResponseAsync(1L, "default", variables).join();
+        service.generateResponseAsync(1L, "default", variables).join();
+
+        verify(chatModel, times(2)).call(any(Prompt.class));
+        assertEquals(2, cache.getStats().bypassed());
+    }
+}
@@ -0,0 +1,70 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NoteCacheTests {
+
+    private final NoteCache cache = new NoteCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void init() {
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    @Test
+    void invalidationDuringALoadKeepsTheStaleResultOut() {
+        List<NoteResponse> first = cache.getNotes(1L, () -> {
+            cache.invalidateUser(1L);
+            return load("stale");
+        });
+        assertEquals("stale", first.get(0).getTitle());
+
+        List<NoteResponse> second = cache.getNotes(1L, () -> load("fresh"));
+        assertEquals("fresh", second.get(0).getTitle());
+        assertEquals(2, loads.get());
+
+        // The fresh list was cached
+        cache.getNotes(1L, () -> load("unused"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void generationsArePrunedOnceLoadsFinish() {
+        for (long userId = 1; userId <= 100; userId++) {
+            cache.getNotes(userId, () -> load("a"));
+            cache.invalidateUser(userId);
+        }
+        long userId = 101;
+        cache.getNotes(userId, () -> {
+            cache.invalidateUser(userId);
+            return load("a");
+        });
+        cache.getNote(userId, 7L, Optional::empty);
+        assertThrows(IllegalStateException.class, () -> cache.getNote(userId, 8L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(0, cache.trackedUsers());
+    }
+
+    private List<NoteResponse> load(String title) {
+        loads.incrementAndGet();
+        NoteResponse note = new NoteResponse();
+        note.setTitle(title);
+        note.setContent("body");
+        return List.of(note);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteImportEvent;
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A chunk that fails as a whole is retried record by record, so only the records that can't be saved are lost
+@SpringBootTest(properties = {"notes.import.chunk-size=5", "notes.quota.max-notes=3"})
+class NoteImportServiceTests {
+
+    @Autowired
+    private NoteImportService importService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Test
+    void savesRecordsUpToTheQuotaAndReportsTheRestByLine() throws Exception {
+        Long userId = newUser();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            ndjson.append("{\"title\":\"Day ").append(i).append("\",\"content\":\"entry ").append(i).append("\"}\n");
+        }
+
+        List<NoteImportEvent> events = new ArrayList<>();
+        NoteImportEvent summary = importService.importNotes(userId,
+                new BufferedReader(new StringReader(ndjson.toString())), events::add);
+
+        assertEquals(5, summary.getProcessed());
+        assertEquals(3, summary.getImported());
+        assertEquals(2, summary.getFailed());
+        List<Integer> failedLines = events.stream()
+                .filter(event -> "error".equals(event.getType()))
+                .map(NoteImportEvent::getLine)
+                .toList();
+        assertEquals(List.of(4, 5), failedLines);
+        assertTrue(events.stream().filter(event -> "error".equals(event.getType()))
+                .allMatch(event -> event.getMessage().startsWith("Could not be saved")));
+        assertEquals(3, noteRepository.countByUserId(userId));
+    }
+
+    @Test
+    void invalidLinesDoNotAffectTheirChunk() throws Exception {
+        Long userId = newUser();
+        String ndjson = """
+                {"title":"One","content":"first"}
+                {"title":"","content":"no title"}
+                not json
+                {"title":"Two","content":"second"}
+                """;
+
+        List<NoteImportEvent> events = new ArrayList<>();
+        NoteImportEvent summary = importService.importNotes(userId,
+                new BufferedReader(new StringReader(ndjson)), events::add);
+
+        assertEquals(2, summary.getImported());
+        assertEquals(2, summary.getFailed());
+        assertEquals(List.of(2, 3), events.stream().map(NoteImportEvent::getLine).toList());
+    }
+
+    private Long newUser() {
+        String username = "u" + UUID.randomUUID().toString().substring(0, 8);
+        return userService.signup(new SignupRequest(username, "secret-password")).getId();
+    }
+}
@@ -0,0 +1,85 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteImportEvent;
+import com.dairy.backend.dto.NoteRequest;
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bulk import against the per-note create path, with the default chunk size and SQL logging off as in prod
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class NoteImportThroughputTests {
+
+    private static final int NOTES = 1_000;
+
+    @Autowired
+    private NoteImportService importService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    /**
+     * Import throughput, printed only (timings depend on the machine).
+     * "per note" is what migrating clients did before: one createNote per
+     * entry, each its own transaction with a user lookup and a single insert.
+     * "bulk" is importNotes on the same entries as NDJSON: user checked once,
+     * sequence ids, JDBC batches in 500-note chunks. Each round uses fresh
+     * users so both paths write into an empty account; the second round is
+     * the one reported.
+     */
+    @Test
+    void importThroughput() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < NOTES; i++) {
+            ndjson.append("{\"title\":\"Day ").append(i)
+                    .append("\",\"content\":\"Walked to the market and wrote this down afterwards.\",\"tags\":[\"import\"]}\n");
+        }
+
+        long perNote = 0;
+        long bulk = 0;
+        for (int round = 0; round < 2; round++) {
+            Long perNoteUser = newUser();
+            long start = System.nanoTime();
+            for (int i = 0; i < NOTES; i++) {
+                noteService.createNote(new NoteRequest("Day " + i,
+                        "Walked to the market and wrote this down afterwards.", Set.of("import"), null), perNoteUser);
+            }
+            perNote = System.nanoTime() - start;
+
+            Long bulkUser = newUser();
+            start = System.nanoTime();
+            NoteImportEvent summary = importService.importNotes(bulkUser,
+                    new BufferedReader(new StringReader(ndjson.toString())), event -> { });
+            bulk = System.nanoTime() - start;
+
+            assertEquals(NOTES, summary.getImported());
+            assertEquals(NOTES, noteRepository.countByUserId(perNoteUser));
+            assertEquals(NOTES, noteRepository.countByUserId(bulkUser));
+        }
+        System.out.printf("import %d notes: per note %.0f ms (%.0f notes/s), bulk %.0f ms (%.0f notes/s)%n",
+                NOTES, perNote / 1e6, NOTES * 1e9 / perNote, bulk / 1e6, NOTES * 1e9 / bulk);
+
+        assertTrue(bulk < perNote, "batched chunks should beat one transaction per note");
+    }
+
+    private Long newUser() {
+        String username = "u" + UUID.randomUUID().toString().substring(0, 8);
+        return userService.signup(new SignupRequest(username, "secret-password")).getId();
+    }
+}
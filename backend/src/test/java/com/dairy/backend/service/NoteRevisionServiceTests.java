@@ -0,0 +1,82 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.NoteRevisionSummary;
+import com.dairy.backend.model.NoteRevision;
+import com.dairy.backend.model.RevisionKind;
+import com.dairy.backend.repository.NoteRevisionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "notes.history.snapshot-interval=4")
+class NoteRevisionServiceTests {
+
+    private static final AtomicLong NOTE_IDS = new AtomicLong(1_000_000);
+    private static final long USER_ID = 42L;
+
+    @Autowired
+    private NoteRevisionService revisionService;
+
+    @Autowired
+    private NoteRevisionRepository revisionRepository;
+
+    @Test
+    void rebuildsEveryRevisionAcrossSnapshotBoundaries() {
+        long noteId = NOTE_IDS.incrementAndGet();
+        List<String> contents = new ArrayList<>(List.of("day 0"));
+        for (int revision = 1; revision <= 10; revision++) {
+            String next = contents.get(revision - 1) + (revision % 3 == 0 ? " 😀" : " line " + revision);
+            revisionService.recordUpdate(noteId, USER_ID, revision, "t" + (revision - 1), contents.get(revision - 1),
+                    "t" + revision, next);
+            contents.add(next);
+        }
+
+        // Snapshots at 0, 4 and 8; everything else is a delta against its predecessor
+        List<Long> snapshots = revisionService.listRevisions(noteId, USER_ID).stream()
+                .filter(summary -> summary.getKind() == RevisionKind.SNAPSHOT)
+                .map(NoteRevisionSummary::getRevision)
+                .sorted()
+                .toList();
+        assertEquals(List.of(0L, 4L, 8L), snapshots);
+        for (int revision = 0; revision <= 10; revision++) {
+            var rebuilt = revisionService.getRevision(noteId, USER_ID, (long) revision).orElseThrow();
+            assertEquals(contents.get(revision), rebuilt.getContent(), "revision " + revision);
+            assertEquals("t" + revision, rebuilt.getTitle());
+        }
+        assertTrue(revisionService.getRevision(noteId, USER_ID, 11L).isEmpty());
+    }
+
+    @Test
+    void updateAfterAHistoryGapStoresTheRevisionItReplaces() {
+        long noteId = NOTE_IDS.incrementAndGet();
+        revisionService.recordUpdate(noteId, USER_ID, 1, "t", "v0", "t", "v1");
+        revisionService.recordUpdate(noteId, USER_ID, 2, "t", "v1", "t", "v2");
+        // History off for revisions 3..5, back on for 6
+        revisionService.recordUpdate(noteId, USER_ID, 6, "t", "v5", "t", "v6");
+
+        assertEquals("v5", revisionService.getRevision(noteId, USER_ID, 5L).orElseThrow().getContent());
+        assertEquals("v6", revisionService.getRevision(noteId, USER_ID, 6L).orElseThrow().getContent());
+        assertEquals("v2", revisionService.getRevision(noteId, USER_ID, 2L).orElseThrow().getContent());
+        // Revisions made while history was off were never recorded
+        assertTrue(revisionService.getRevision(noteId, USER_ID, 3L).isEmpty());
+    }
+
+    @Test
+    void brokenChainIsAnErrorNotAnEmptyRevision() {
+        long noteId = NOTE_IDS.incrementAndGet();
+        revisionService.recordUpdate(noteId, USER_ID, 1, "t", "v0", "t", "v1");
+        // A delta whose predecessor is missing, as written before gaps were back-filled
+        revisionRepository.save(new NoteRevision(noteId, USER_ID, 3L, RevisionKind.DELTA, "t", "2,0,1:3"));
+
+        assertThrows(IllegalStateException.class, () -> revisionService.getRevision(noteId, USER_ID, 3L));
+        assertTrue(revisionService.getRevision(noteId, USER_ID, 2L).isEmpty());
+    }
+}
@@ -0,0 +1,283 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.CursorPage;
+import com.dairy.backend.dto.NotePatchRequest;
+import com.dairy.backend.dto.NoteRequest;
+import com.dairy.backend.dto.NoteResponse;
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.dto.TagFilter;
+import com.dairy.backend.dto.TextEdit;
+import com.dairy.backend.exception.NoteConflictException;
+import com.dairy.backend.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "notes.compression.threshold-bytes=512")
+class NoteServiceTests {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Long userId;
+
+    @BeforeEach
+    void signUp() {
+        userId = newUser();
+    }
+
+    @Test
+    void storesBodiesOverTheConfiguredThresholdCompressed() {
+        String content = "Walked to the market again today. ".repeat(40);
+        NoteResponse note = noteService.createNote(request("Market", content), userId);
+
+        String stored = jdbcTemplate.queryForObject("SELECT content FROM notes WHERE id = ?", String.class, note.getId());
+        assertTrue(stored.startsWith("\u0001z1:"));
+        assertEquals(content, noteService.getNoteById(note.getId(), userId).orElseThrow().getContent());
+    }
+
+    @Test
+    void updateAppliesTheSizeDeltaAndRecordsHistory() {
+        String original = "First draft of a long entry. ".repeat(30);
+        NoteResponse note = noteService.createNote(request("Draft", original), userId);
+
+        NoteResponse updated = noteService.updateNote(note.getId(), request("Final", "short"), userId, note.getVersion())
+                .orElseThrow();
+
+        assertEquals(note.getVersion() + 1, updated.getVersion());
+        assertEquals(5L, storedContentBytes());
+        assertEquals("short", noteService.getNoteById(note.getId(), userId).orElseThrow().getContent());
+        // Revision 0 is rebuilt from the previous (compressed) content the UPDATE handed back
+        assertEquals(original, noteService.getRevision(note.getId(), userId, 0L).orElseThrow().getContent());
+    }
+
+    @Test
+    void updateReturnsTheFullNote() {
+        NoteRequest create = request("Tagged", "body");
+        create.setTags(Set.of("work", "Travel"));
+        NoteResponse note = noteService.createNote(create, userId);
+
+        NoteResponse keptTags = noteService.updateNote(note.getId(), request("Tagged", "edited"), userId, null)
+                .orElseThrow();
+        assertEquals(note.getCreatedAt(), keptTags.getCreatedAt());
+        assertEquals(note.getTags(), keptTags.getTags());
+
+        NoteRequest retag = request("Tagged", "edited again");
+        retag.setTags(Set.of("home"));
+        NoteResponse newTags = noteService.updateNote(note.getId(), retag, userId, null).orElseThrow();
+        assertEquals(Set.of("home"), newTags.getTags());
+        assertEquals(note.getVersion() + 2, newTags.getVersion());
+        assertEquals(note.getCreatedAt(), newTags.getCreatedAt());
+    }
+
+    @Test
+    void updateWithStaleVersionConflicts() {
+        NoteResponse note = noteService.createNote(request("Title", "body"), userId);
+        noteService.updateNote(note.getId(), request("Title", "newer body"), userId, note.getVersion());
+
+        assertThrows(NoteConflictException.class,
+                () -> noteService.updateNote(note.getId(), request("Title", "lost"), userId, note.getVersion()));
+        assertEquals(10L, storedContentBytes());
+    }
+
+    @Test
+    void updateAndDeleteOfAnotherUsersNoteFindNothing() {
+        NoteResponse note = noteService.createNote(request("Mine", "private"), userId);
+        Long other = newUser();
+
+        assertTrue(noteService.updateNote(note.getId(), request("Theirs", "x"), other, null).isEmpty());
+        assertFalse(noteService.deleteNote(note.getId(), other));
+        assertEquals("private", noteService.getNoteById(note.getId(), userId).orElseThrow().getContent());
+    }
+
+    @Test
+    void deleteRemovesTheNoteFromStats() {
+        NoteResponse keep = noteService.createNote(request("Keep", "12345"), userId);
+        NoteResponse drop = noteService.createNote(request("Drop", "1234567"), userId);
+
+        assertTrue(noteService.deleteNote(drop.getId(), userId));
+        assertFalse(noteService.deleteNote(drop.getId(), userId));
+        assertEquals(1, noteService.getNoteCountByUser(userId));
+        assertEquals(5L, storedContentBytes());
+        assertTrue(noteService.getNoteById(keep.getId(), userId).isPresent());
+    }
+
+    @Test
+    void concurrentFirstWritesBothSeedStatsSafely() throws Exception {
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<NoteResponse>> writes = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String title = "Note " + i;
+            writes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return noteService.createNote(request(title, "abc"), userId);
+            }));
+        }
+        start.countDown();
+        for (CompletableFuture<NoteResponse> write : writes) {
+            write.get();
+        }
+
+        assertEquals(writers, noteService.getNoteCountByUser(userId));
+        assertEquals(3L * writers, storedContentBytes());
+    }
+
+    // Users from before the stats table have no row: their first write of any kind seeds it, counting that write once
+    @Test
+    void firstWriteSeedsStatsFromExistingNotes() {
+        NoteResponse first = noteService.createNote(request("One", "abc"), userId);
+        noteService.createNote(request("Two", "abc"), userId);
+
+        dropStatsRow();
+        noteService.createNote(request("Three", "abcd"), userId);
+        assertEquals(3L, storedNoteCount());
+        assertEquals(10L, storedContentBytes());
+
+        dropStatsRow();
+        noteService.updateNote(first.getId(), request("One", "abcdef"), userId, null);
+        assertEquals(3L, storedNoteCount());
+        assertEquals(13L, storedContentBytes());
+
+        dropStatsRow();
+        noteService.deleteNote(first.getId(), userId);
+        assertEquals(2L, storedNoteCount());
+        assertEquals(7L, storedContentBytes());
+    }
+
+    // Each first write seeds inside its own transaction; it must not need a second connection to do so
+    @Test
+    void firstWritesFromMoreUsersThanPoolConnections() throws Exception {
+        int writers = 2 * ((HikariDataSource) dataSource).getMaximumPoolSize();
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            users.add(newUser());
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<NoteResponse>> writes = new ArrayList<>();
+            for (Long user : users) {
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    return noteService.createNote(request("First", "abc"), user);
+                }));
+            }
+            start.countDown();
+            for (Future<NoteResponse> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Long user : users) {
+            assertEquals(1L, jdbcTemplate.queryForObject(
+                    "SELECT note_count FROM user_note_stats WHERE user_id = ?", Long.class, user));
+        }
+    }
+
+    // Write timestamps must match what the microsecond column stores, or the tag index orders
+    // pages differently from the cursors built from the database rows
+    @Test
+    void taggedPagesAfterEditsHaveNoRepeatsOrGaps() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            NoteRequest create = request("Note " + i, "body " + i);
+            create.setTags(Set.of("work"));
+            NoteResponse created = noteService.createNote(create, userId);
+            assertEquals(storedUpdatedAt(created.getId()), created.getUpdatedAt());
+            ids.add(created.getId());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            LocalDateTime written;
+            if (i % 2 == 0) {
+                written = noteService.updateNote(id, request("Edited " + i, "new body"), userId, null)
+                        .orElseThrow().getUpdatedAt();
+            } else {
+                NotePatchRequest patch = NotePatchRequest.builder()
+                        .baseVersion(noteService.getNoteById(id, userId).orElseThrow().getVersion())
+                        .edits(List.of(new TextEdit(0, 0, "patched ")))
+                        .build();
+                written = noteService.patchNote(id, patch, userId).orElseThrow().getUpdatedAt();
+            }
+            assertEquals(storedUpdatedAt(id), written);
+        }
+
+        TagFilter work = new TagFilter();
+        work.setTag(List.of("work"));
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<NoteResponse> page = noteService.getNotesPage(userId, cursor, 1, work);
+            page.getItems().forEach(note -> paged.add(note.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(jdbcTemplate.queryForList(
+                "SELECT id FROM notes WHERE user_id = ? ORDER BY updated_at DESC, id DESC", Long.class, userId), paged);
+    }
+
+    private LocalDateTime storedUpdatedAt(Long noteId) {
+        return jdbcTemplate.queryForObject("SELECT updated_at FROM notes WHERE id = ?", LocalDateTime.class, noteId);
+    }
+
+    private void dropStatsRow() {
+        jdbcTemplate.update("DELETE FROM user_note_stats WHERE user_id = ?", userId);
+    }
+
+    private Long storedNoteCount() {
+        return jdbcTemplate.queryForObject("SELECT note_count FROM user_note_stats WHERE user_id = ?", Long.class, userId);
+    }
+
+    private Long storedContentBytes() {
+        return jdbcTemplate.queryForObject("SELECT content_bytes FROM user_note_stats WHERE user_id = ?", Long.class, userId);
+    }
+
+    private Long newUser() {
+        User user = userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+        return user.getId();
+    }
+
+    static NoteRequest request(String title, String content) {
+        NoteRequest request = new NoteRequest();
+        request.setTitle(title);
+        request.setContent(content);
+        return request;
+    }
+}
@@ -0,0 +1,133 @@
+package com.dairy.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserIndexesTests {
+
+    @Test
+    void buildsOncePerUserAndSkipsUpdatesForUnloadedUsers() {
+        AtomicInteger builds = new AtomicInteger();
+        UserIndexes<Set<Long>> indexes = new UserIndexes<>(userId -> {
+            builds.incrementAndGet();
+            return ConcurrentHashMap.newKeySet();
+        }, 10);
+
+        indexes.update(1L, index -> index.add(99L));
+        Set<Long> index = indexes.get(1L);
+        assertSame(index, indexes.get(1L));
+        assertEquals(1, builds.get());
+        assertTrue(index.isEmpty());
+
+        indexes.update(1L, set -> set.add(7L));
+        assertEquals(Set.of(7L), index);
+    }
+
+    @Test
+    void replaysChangesCommittedDuringTheBuild() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        UserIndexes<Set<Long>> indexes = new UserIndexes<>(userId -> {
+            // The database read: sees note 1 only
+            Set<Long> index = ConcurrentHashMap.newKeySet();
+            index.add(1L);
+            building.countDown();
+            await(release);
+            return index;
+        }, 10);
+
+        CompletableFuture<Set<Long>> reader = CompletableFuture.supplyAsync(() -> indexes.get(5L));
+        assertTrue(building.await(5, TimeUnit.SECONDS));
+        // Commits that land after the read but before publication
+        indexes.update(5L, index -> index.add(2L));
+        indexes.update(5L, index -> index.remove(1L));
+        assertNull(indexes.peek(5L));
+        release.countDown();
+
+        assertEquals(Set.of(2L), reader.get(5, TimeUnit.SECONDS));
+        assertEquals(Set.of(2L), indexes.peek(5L));
+    }
+
+    @Test
+    void concurrentReadersShareOneBuild() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        UserIndexes<Object> indexes = new UserIndexes<>(userId -> {
+            builds.incrementAndGet();
+            await(release);
+            return new Object();
+        }, 10);
+
+        List<CompletableFuture<Object>> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(CompletableFuture.supplyAsync(() -> indexes.get(1L)));
+        }
+        Thread.sleep(50);
+        release.countDown();
+        Object first = readers.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Object> reader : readers) {
+            assertSame(first, reader.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedUser() {
+        Map<Long, Integer> builds = new ConcurrentHashMap<>();
+        UserIndexes<Long> indexes = new UserIndexes<>(userId -> {
+            builds.merge(userId, 1, Integer::sum);
+            return userId;
+        }, 2);
+
+        indexes.get(1L);
+        indexes.get(2L);
+        indexes.get(1L);
+        indexes.get(3L);
+
+        assertEquals(2, indexes.size());
+        assertNull(indexes.peek(2L));
+        indexes.get(2L);
+        assertEquals(2, builds.get(2L));
+        assertNull(indexes.peek(1L));
+        assertEquals(3L, indexes.peek(3L));
+        assertEquals(1, builds.get(1L));
+    }
+
+    @Test
+    void failedBuildIsRetriedOnNextUse() {
+        AtomicInteger attempts = new AtomicInteger();
+        UserIndexes<String> indexes = new UserIndexes<>(userId -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("database down");
+            }
+            return "ok";
+        }, 10);
+
+        assertThrows(IllegalStateException.class, () -> indexes.get(1L));
+        assertEquals(0, indexes.size());
+        assertEquals("ok", indexes.get(1L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
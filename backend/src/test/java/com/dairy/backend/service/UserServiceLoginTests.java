@@ -0,0 +1,100 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.LoginRequest;
+import com.dairy.backend.dto.SignupRequest;
+import com.dairy.backend.model.User;
+import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.security.CustomUserDetailsService;
+import com.dairy.backend.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Login against the real database and the configured BCrypt cost (10)
+@SpringBootTest
+class UserServiceLoginTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void storedHashIsUpgradedToTheConfiguredCost() {
+        User user = signUp();
+        jdbcTemplate.update("UPDATE users SET password = ? WHERE id = ?",
+                new BCryptPasswordEncoder(4).encode("secret-password"), user.getId());
+
+        userService.login(new LoginRequest(user.getUsername(), "secret-password"));
+
+        String stored = jdbcTemplate.queryForObject("SELECT password FROM users WHERE id = ?", String.class, user.getId());
+        assertTrue(stored.startsWith("$2a$10$"), stored);
+        userService.login(new LoginRequest(user.getUsername(), "secret-password"));
+    }
+
+    /**
+     * Sequential login throughput, printed only. "before" replays the old
+     * pipeline: findByUsername, AuthenticationManager (lookup + BCrypt on the
+     * request thread), loadUserByUsername, the lookup generateToken used to
+     * make, and a final findByUsername. "after" is UserService.login: one
+     * lookup, BCrypt on the hashing pool.
+     */
+    @Test
+    void loginThroughput() {
+        User user = signUp();
+        String username = user.getUsername();
+        int logins = 20;
+
+        long[] before = new long[logins];
+        long[] after = new long[logins];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < logins; i++) {
+                long start = System.nanoTime();
+                userRepository.findByUsername(username).orElseThrow();
+                authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, "secret-password"));
+                userDetailsService.loadUserByUsername(username);
+                User found = userRepository.findByUsername(username).orElseThrow();
+                jwtUtil.generateToken(found);
+                userRepository.findByUsername(username).orElseThrow();
+                long replayed = System.nanoTime();
+                userService.login(new LoginRequest(username, "secret-password"));
+                before[i] = replayed - start;
+                after[i] = System.nanoTime() - replayed;
+            }
+        }
+        System.out.printf("login (median ms): before %.2f (%.1f/s), after %.2f (%.1f/s)%n",
+                median(before) / 1e6, 1e9 / median(before), median(after) / 1e6, 1e9 / median(after));
+    }
+
+    private User signUp() {
+        return userService.signup(new SignupRequest("u" + UUID.randomUUID().toString().substring(0, 8), "secret-password"));
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
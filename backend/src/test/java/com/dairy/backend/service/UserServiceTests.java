@@ -0,0 +1,127 @@
+package com.dairy.backend.service;
+
+import com.dairy.backend.dto.LoginRequest;
+import com.dairy.backend.dto.LoginResponse;
+import com.dairy.backend.exception.TooManyRequestsException;
+import com.dairy.backend.model.Role;
+import com.dairy.backend.model.User;
+import com.dairy.backend.repository.UserRepository;
+import com.dairy.backend.security.JwtUtil;
+import com.dairy.backend.security.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class UserServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private PasswordHashingService hashing;
+
+    private UserService userService(int configuredCost) {
+        hashing = spy(new PasswordHashingService(1, 4, 2));
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", new BCryptPasswordEncoder(configuredCost));
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "passwordHashingService", hashing);
+        ReflectionTestUtils.setField(userService, "jwtUtil", jwtUtil);
+        when(jwtUtil.generateToken(any(User.class))).thenReturn("token");
+        return userService;
+    }
+
+    @AfterEach
+    void shutdown() {
+        hashing.shutdown();
+    }
+
+    private User existing(int cost) {
+        User user = User.builder()
+                .id(42L)
+                .username("alice")
+                .password(new BCryptPasswordEncoder(cost).encode("secret-password"))
+                .role(Role.USER)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        return user;
+    }
+
+    @Test
+    void loginLooksTheUserUpOnce() {
+        UserService userService = userService(4);
+        existing(4);
+
+        LoginResponse response = userService.login(new LoginRequest("alice", "secret-password"));
+
+        assertEquals("token", response.getToken());
+        assertEquals(42L, response.getId());
+        verify(userRepository).findByUsername("alice");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void loginRehashesWhenTheConfiguredCostWentUp() {
+        UserService userService = userService(5);
+        existing(4);
+
+        userService.login(new LoginRequest("alice", "secret-password"));
+
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(42L), hash.capture());
+        assertTrue(hash.getValue().startsWith("$2a$05$"), hash.getValue());
+        assertTrue(new BCryptPasswordEncoder().matches("secret-password", hash.getValue()));
+    }
+
+    @Test
+    void wrongPasswordIsRejectedWithoutRehashing() {
+        UserService userService = userService(5);
+        existing(4);
+
+        assertThrows(BadCredentialsException.class,
+                () -> userService.login(new LoginRequest("alice", "wrong-password")));
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+
+    @Test
+    void shedVerificationSurfacesAsTooManyRequests() {
+        UserService userService = userService(4);
+        existing(4);
+        doThrow(new TooManyRequestsException("busy", 2)).when(hashing).matches(anyString(), anyString());
+
+        assertThrows(TooManyRequestsException.class,
+                () -> userService.login(new LoginRequest("alice", "secret-password")));
+    }
+
+    @Test
+    void shedRehashKeepsTheLoginAndTheOldHash() {
+        UserService userService = userService(5);
+        existing(4);
+        doThrow(new TooManyRequestsException("busy", 2)).when(hashing).encode(anyString());
+
+        assertEquals("token", userService.login(new LoginRequest("alice", "secret-password")).getToken());
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+}
@@ -0,0 +1,111 @@
+package com.dairy.backend.tags;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserTagIndexTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private final UserTagIndex index = new UserTagIndex();
+
+    @BeforeEach
+    void fill() {
+        // Note n is updated n minutes after T0, so newest first is 6, 5, ... 1
+        index.put(1, T0.plusMinutes(1), Set.of("work"));
+        index.put(2, T0.plusMinutes(2), Set.of("work", "urgent"));
+        index.put(3, T0.plusMinutes(3), Set.of("home"));
+        index.put(4, T0.plusMinutes(4), Set.of("home", "urgent"));
+        index.put(5, T0.plusMinutes(5), Set.of("travel"));
+        index.put(6, T0.plusMinutes(6), Set.of());
+    }
+
+    @Test
+    void allOfIsAnIntersection() {
+        assertEquals(List.of(2L), page(List.of("work", "urgent"), List.of(), List.of()));
+        assertEquals(List.of(), page(List.of("work", "missing"), List.of(), List.of()));
+    }
+
+    @Test
+    void anyOfIsAUnion() {
+        assertEquals(List.of(4L, 3L, 2L, 1L), page(List.of(), List.of("work", "home"), List.of()));
+        assertEquals(List.of(5L), page(List.of(), List.of("travel", "missing"), List.of()));
+    }
+
+    @Test
+    void noneOfSubtracts() {
+        assertEquals(List.of(6L, 5L, 3L, 1L), page(List.of(), List.of(), List.of("urgent")));
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L), page(List.of(), List.of(), List.of("missing")));
+    }
+
+    @Test
+    void combinesAllAnyAndNone() {
+        assertEquals(List.of(4L), page(List.of("urgent"), List.of("home", "travel"), List.of("work")));
+        assertEquals(List.of(3L, 1L), page(List.of(), List.of("work", "home"), List.of("urgent")));
+    }
+
+    @Test
+    void deletedOrdinalIsReusedWithoutItsOldTags() {
+        index.remove(2);
+        index.put(7, T0.plusMinutes(7), Set.of("home"));
+
+        assertEquals(List.of(1L), page(List.of("work"), List.of(), List.of()));
+        assertEquals(List.of(4L), page(List.of("urgent"), List.of(), List.of()));
+        assertEquals(List.of(7L, 4L, 3L), page(List.of("home"), List.of(), List.of()));
+        assertEquals(Map.of("home", 3, "travel", 1, "urgent", 1, "work", 1), index.tagCounts());
+    }
+
+    @Test
+    void ordersByUpdatedAtThenIdDescending() {
+        index.put(10, T0.plusMinutes(3), Set.of("same"));
+        index.put(12, T0.plusMinutes(3), Set.of("same"));
+        index.put(11, T0.plusMinutes(3), Set.of("same"));
+        index.put(9, T0.plusMinutes(8), Set.of("same"));
+
+        assertEquals(List.of(9L, 12L, 11L, 10L), page(List.of("same"), List.of(), List.of()));
+    }
+
+    @Test
+    void updateMovesANoteAndKeepsTagsWhenNull() {
+        index.put(1, T0.plusMinutes(10), null);
+
+        assertEquals(List.of(1L, 2L), page(List.of("work"), List.of(), List.of()));
+    }
+
+    @Test
+    void resumesFromACursorAcrossEqualTimestamps() {
+        for (long id = 20; id < 30; id++) {
+            index.put(id, T0.plusMinutes(id % 3), Set.of("bulk"));
+        }
+        List<Long> all = index.page(List.of("bulk"), List.of(), List.of(), null, null, 100);
+
+        List<Long> walked = new ArrayList<>();
+        LocalDateTime afterUpdatedAt = null;
+        Long afterId = null;
+        while (true) {
+            List<Long> page = index.page(List.of("bulk"), List.of(), List.of(), afterUpdatedAt, afterId, 3);
+            if (page.isEmpty()) {
+                break;
+            }
+            walked.addAll(page);
+            afterId = page.get(page.size() - 1);
+            afterUpdatedAt = T0.plusMinutes(afterId % 3);
+        }
+
+        assertEquals(List.of(29L, 26L, 23L, 20L, 28L, 25L, 22L, 27L, 24L, 21L), all);
+        assertEquals(all, walked);
+    }
+
+    private List<Long> page(Collection<String> all, Collection<String> any, Collection<String> none) {
+        return index.page(all, any, none, null, null, 100);
+    }
+}
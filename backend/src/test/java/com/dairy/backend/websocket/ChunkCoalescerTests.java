@@ -0,0 +1,271 @@
+package com.dairy.backend.websocket;
+
+import com.dairy.backend.ai.AiTimer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives a fake token stream through the coalescer on a virtual clock, so frame counts are exact
+class ChunkCoalescerTests {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ManualTimer timer = new ManualTimer();
+    private final List<String> frames = new ArrayList<>();
+
+    @AfterEach
+    void stop() {
+        timer.shutdown();
+    }
+
+    @Test
+    void sendsOneFramePerWindow() throws Exception {
+        // 100 tokens/s for 10 s against a 40 ms window
+        ChunkCoalescer coalescer = new ChunkCoalescer(this::accept, timer, Duration.ofMillis(40), 4096);
+        StringBuilder sent = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            timer.advanceTo(i * 10L);
+            String token = "t" + i + " ";
+            sent.append(token);
+            coalescer.append(token);
+        }
+        timer.advanceTo(10_000);
+        coalescer.finish(() -> frames.add("complete"));
+
+        // Each window collects the four tokens that arrive before it closes
+        assertEquals(251, frames.size());
+        for (int frame = 0; frame < 250; frame++) {
+            int first = frame * 4;
+            assertEquals("t" + first + " t" + (first + 1) + " t" + (first + 2) + " t" + (first + 3) + " ",
+                    content(frames.get(frame)));
+        }
+        assertEquals("complete", frames.get(frames.size() - 1));
+        assertEquals(sent.toString(), joined());
+    }
+
+    @Test
+    void flushesEarlyAtMaxChars() throws Exception {
+        ChunkCoalescer coalescer = new ChunkCoalescer(this::accept, timer, Duration.ofHours(1), 50);
+        for (int i = 0; i < 100; i++) {
+            coalescer.append("0123456789");
+        }
+        coalescer.finish(() -> frames.add("complete"));
+
+        assertEquals(21, frames.size());
+        assertEquals("0123456789".repeat(5), content(frames.get(0)));
+    }
+
+    @Test
+    void refusedTextIsMergedIntoTheNextWindow() throws Exception {
+        List<Boolean> answers = new ArrayList<>(List.of(false, false));
+        ChunkCoalescer coalescer = new ChunkCoalescer((frame, droppable) -> {
+            if (droppable && !answers.isEmpty() && !answers.remove(0)) {
+                return false;
+            }
+            return accept(frame, droppable);
+        }, timer, Duration.ofMillis(40), 4096);
+
+        coalescer.append("a");
+        timer.advanceTo(40);
+        coalescer.append("b");
+        timer.advanceTo(80);
+        coalescer.append("c");
+        timer.advanceTo(120);
+        coalescer.finish(() -> frames.add("complete"));
+
+        assertEquals(List.of("abc"), frames.subList(0, frames.size() - 1).stream().map(ChunkCoalescerTests::content).toList());
+        assertEquals("complete", frames.get(frames.size() - 1));
+    }
+
+    @Test
+    void finalChunkPrecedesCompletion() throws Exception {
+        ChunkCoalescer coalescer = new ChunkCoalescer(this::accept, timer, Duration.ofMillis(40), 4096);
+        coalescer.append("tail");
+        coalescer.finish(() -> frames.add("complete"));
+        coalescer.append("late");
+        timer.advanceTo(1000);
+
+        assertEquals(2, frames.size());
+        assertEquals("tail", content(frames.get(0)));
+        assertEquals("complete", frames.get(1));
+    }
+
+    // Prints frames per second and bytes allocated per token, one frame per token vs coalesced
+    @Test
+    void frameRateAndAllocation() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int tokens = 20_000;
+        System.out.println("tok/s  frames/s(before)  frames/s(after)  B/token(before)  B/token(after)");
+        for (int rate : new int[]{30, 100, 300}) {
+            long intervalMicros = 1_000_000L / rate;
+
+            // Before: a Map and an ObjectMapper call per token, one frame each
+            perTokenFrames(2_000);
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            int before = perTokenFrames(tokens);
+            double beforeBytes = (double) (threads.getCurrentThreadAllocatedBytes() - allocated) / tokens;
+
+            coalescedFrames(2_000, intervalMicros);
+            allocated = threads.getCurrentThreadAllocatedBytes();
+            int after = coalescedFrames(tokens, intervalMicros);
+            double afterBytes = (double) (threads.getCurrentThreadAllocatedBytes() - allocated) / tokens;
+
+            double seconds = tokens / (double) rate;
+            System.out.printf("%5d  %16.1f  %15.1f  %15.0f  %14.0f%n", rate, before / seconds, after / seconds,
+                    beforeBytes, afterBytes);
+
+            assertTrue(after / seconds <= 1000.0 / 40 + 1, "at most one frame per 40 ms window");
+            assertTrue(afterBytes < beforeBytes, "coalescing should allocate less per token");
+        }
+    }
+
+    private int perTokenFrames(int tokens) throws Exception {
+        int count = 0;
+        for (int i = 0; i < tokens; i++) {
+            TextMessage frame = new TextMessage(JSON.writeValueAsString(Map.of(
+                    "type", "chunk", "content", " word", "timestamp", System.currentTimeMillis())));
+            count += frame.getPayloadLength() > 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    private int coalescedFrames(int tokens, long intervalMicros) {
+        ManualTimer clock = new ManualTimer();
+        int[] count = new int[1];
+        try {
+            ChunkCoalescer coalescer = new ChunkCoalescer((frame, droppable) -> {
+                count[0]++;
+                return true;
+            }, clock, Duration.ofMillis(40), 512);
+            for (int i = 0; i < tokens; i++) {
+                clock.advanceTo(i * intervalMicros / 1000);
+                coalescer.append(" word");
+            }
+            coalescer.finish(() -> { });
+        } finally {
+            clock.shutdown();
+        }
+        return count[0];
+    }
+
+    private boolean accept(TextMessage frame, boolean droppable) {
+        frames.add(frame.getPayload());
+        return true;
+    }
+
+    private String joined() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (String frame : frames) {
+            if (!frame.equals("complete")) {
+                text.append(content(frame));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String content(String frame) {
+        try {
+            JsonNode node = JSON.readTree(frame);
+            assertEquals("chunk", node.get("type").asText());
+            return node.get("content").asText();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // AiTimer on a virtual millisecond clock; scheduled tasks run from advanceTo
+    private static final class ManualTimer extends AiTimer {
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, Duration delay) {
+            Task scheduled = new Task(now + delay.toMillis(), task);
+            tasks.add(scheduled);
+            return scheduled;
+        }
+
+        void advanceTo(long millis) {
+            while (true) {
+                Task next = null;
+                for (Iterator<Task> pending = tasks.iterator(); pending.hasNext(); ) {
+                    Task task = pending.next();
+                    if (task.cancelled) {
+                        pending.remove();
+                    } else if (task.due <= millis && (next == null || task.due < next.due)) {
+                        next = task;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = next.due;
+                next.action.run();
+            }
+            now = millis;
+        }
+    }
+
+    private static final class Task implements ScheduledFuture<Object> {
+        final long due;
+        final Runnable action;
+        boolean cancelled;
+
+        Task(long due, Runnable action) {
+            this.due = due;
+            this.action = action;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return 0;
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return 0;
+        }
+    }
+}
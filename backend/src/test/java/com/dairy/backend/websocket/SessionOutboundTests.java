@@ -0,0 +1,80 @@
+package com.dairy.backend.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionOutboundTests {
+
+    private final ExecutorService sendExecutor = Executors.newFixedThreadPool(2);
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        sendExecutor.shutdownNow();
+    }
+
+    @Test
+    void closesSessionStuckOnItsLastFrame() throws Exception {
+        WebSocketSession session = blockingSession();
+        SessionOutbound outbound = new SessionOutbound(session, "alice", sendExecutor, OverflowPolicy.COALESCE, 50, 1024);
+
+        outbound.offer(new TextMessage("{\"type\":\"complete\"}"), false);
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // Within the limit nothing happens
+        outbound.enforceSendTimeLimit();
+        assertFalse(outbound.stats().closed());
+
+        Thread.sleep(100);
+        outbound.enforceSendTimeLimit();
+        assertTrue(outbound.stats().closed());
+        verify(session, timeout(5000)).close(argThat(status ->
+                status.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()));
+    }
+
+    @Test
+    void idleSessionIsLeftOpen() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        SessionOutbound outbound = new SessionOutbound(session, "alice", sendExecutor, OverflowPolicy.COALESCE, 50, 1024);
+
+        outbound.offer(new TextMessage("{}"), false);
+        verify(session, timeout(5000)).sendMessage(any());
+        Thread.sleep(100);
+        outbound.enforceSendTimeLimit();
+        assertFalse(outbound.stats().closed());
+    }
+
+    private WebSocketSession blockingSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}